@@ -0,0 +1,112 @@
+package eu.rawora.playLegendTask.util;
+
+import eu.rawora.playLegendTask.model.PlayerGroupInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht den früheren Ablauf-Check (alle 100 Ticks über alle Online-Spieler laufen)
+ * mit dem {@link ExpiryWheel}, das in derselben simulierten Zeit 100-mal um einen Tick weitergedreht wird.
+ * Abgelaufene Einträge werden sofort neu eingeplant, damit das Wheel konstant {@code entries} Einträge hält.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExpiryWheelBenchmark {
+
+    // Wie der frühere Task: alle 100 Ticks (5 Sekunden)
+    private static final int SCAN_INTERVAL_TICKS = 100;
+    private static final long MIN_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long MAX_DELAY_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    @Param({"10000"})
+    public int entries;
+
+    private final Map<UUID, PlayerGroupInfo> onlinePlayerData = new ConcurrentHashMap<>();
+    private ExpiryWheel<UUID> wheel;
+    private UUID[] keys;
+    private SplittableRandom random;
+    private long now;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        now = System.currentTimeMillis();
+        wheel = new ExpiryWheel<>(now);
+        onlinePlayerData.clear();
+        keys = new UUID[entries];
+        for (int i = 0; i < entries; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            long expiry = now + randomDelay();
+            keys[i] = uuid;
+            onlinePlayerData.put(uuid, new PlayerGroupInfo(uuid, "vip", expiry));
+            wheel.schedule(uuid, expiry);
+        }
+        cursor = 0;
+    }
+
+    /**
+     * Der frühere Check: ein Durchlauf über alle Einträge (entspricht 100 Ticks).
+     */
+    @Benchmark
+    public List<UUID> fullScan() {
+        long checkTime = now;
+        List<UUID> expiredPlayersUUIDs = new ArrayList<>();
+        onlinePlayerData.forEach((uuid, info) -> {
+            if (!info.isPermanent() && info.expiryTime() <= checkTime) {
+                expiredPlayersUUIDs.add(uuid);
+            }
+        });
+        return expiredPlayersUUIDs;
+    }
+
+    /**
+     * Das Wheel über dieselben 100 Ticks, ein advance() pro Tick wie im Plugin.
+     */
+    @Benchmark
+    public int wheelAdvance() {
+        int fired = 0;
+        for (int tick = 0; tick < SCAN_INTERVAL_TICKS; tick++) {
+            now += ExpiryWheel.TICK_MILLIS;
+            List<UUID> expired = wheel.advance(now);
+            for (UUID uuid : expired) {
+                wheel.schedule(uuid, now + randomDelay());
+            }
+            fired += expired.size();
+        }
+        return fired;
+    }
+
+    /**
+     * Neu einplanen eines vorhandenen Eintrags (z.B. /setgroup mit neuer Dauer) und Entfernen (Quit).
+     */
+    @Benchmark
+    public boolean wheelRescheduleAndCancel() {
+        UUID uuid = keys[cursor];
+        cursor = (cursor + 1) % keys.length;
+        wheel.schedule(uuid, now + randomDelay());
+        boolean removed = wheel.cancel(uuid);
+        wheel.schedule(uuid, now + randomDelay());
+        return removed;
+    }
+
+    private long randomDelay() {
+        return random.nextLong(MIN_DELAY_MILLIS, MAX_DELAY_MILLIS);
+    }
+}
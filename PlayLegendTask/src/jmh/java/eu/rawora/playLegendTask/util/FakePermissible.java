@@ -0,0 +1,104 @@
+package eu.rawora.playLegendTask.util;
+
+import org.bukkit.permissions.Permissible;
+import org.bukkit.permissions.Permission;
+import org.bukkit.permissions.PermissionAttachment;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimaler Ersatz für den Permissible eines Spielers (ohne laufenden Server).
+ * Bildet den Pfad von Bukkits PermissibleBase#hasPermission nach: Node kleinschreiben, in der Map der
+ * effektiven Permissions nachschlagen und sonst auf den Default der registrierten Permission zurückfallen.
+ * Attachments werden nicht unterstützt, die Permissions werden einmal im Konstruktor gesetzt.
+ */
+public final class FakePermissible implements Permissible {
+
+    private final Map<String, PermissionAttachmentInfo> permissions = new HashMap<>();
+    private final Map<String, Boolean> registeredDefaults; // Ersatz für PluginManager#getPermission(name).getDefault()
+
+    public FakePermissible(Map<String, Boolean> effective, Map<String, Boolean> registeredDefaults) {
+        this.registeredDefaults = registeredDefaults;
+        effective.forEach((node, value) -> {
+            String name = node.toLowerCase(Locale.ROOT);
+            permissions.put(name, new PermissionAttachmentInfo(this, name, null, value));
+        });
+    }
+
+    @Override
+    public boolean isPermissionSet(String name) {
+        return permissions.containsKey(name.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public boolean isPermissionSet(Permission perm) {
+        return isPermissionSet(perm.getName());
+    }
+
+    @Override
+    public boolean hasPermission(String inName) {
+        String name = inName.toLowerCase(Locale.ROOT);
+        if (isPermissionSet(name)) {
+            return permissions.get(name).getValue();
+        }
+        // Nicht gesetzt -> Default der registrierten Permission, unbekannte Nodes sind OP-only
+        Boolean registered = registeredDefaults.get(name);
+        return registered != null ? registered : isOp();
+    }
+
+    @Override
+    public boolean hasPermission(Permission perm) {
+        return hasPermission(perm.getName());
+    }
+
+    @Override
+    public PermissionAttachment addAttachment(Plugin plugin, String name, boolean value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PermissionAttachment addAttachment(Plugin plugin) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PermissionAttachment addAttachment(Plugin plugin, String name, boolean value, int ticks) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PermissionAttachment addAttachment(Plugin plugin, int ticks) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAttachment(PermissionAttachment attachment) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void recalculatePermissions() {
+        // Permissions sind fest, nichts neu zu berechnen
+    }
+
+    @Override
+    public Set<PermissionAttachmentInfo> getEffectivePermissions() {
+        return new HashSet<>(permissions.values());
+    }
+
+    @Override
+    public boolean isOp() {
+        return false;
+    }
+
+    @Override
+    public void setOp(boolean value) {
+        throw new UnsupportedOperationException();
+    }
+}
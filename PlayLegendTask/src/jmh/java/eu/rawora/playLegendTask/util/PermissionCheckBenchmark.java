@@ -0,0 +1,138 @@
+package eu.rawora.playLegendTask.util;
+
+import eu.rawora.playLegendTask.model.Group;
+import eu.rawora.playLegendTask.model.PlayerGroupInfo;
+import eu.rawora.playLegendTask.model.PlayerSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht eine Permission-Prüfung über Bukkit (Node-String kleinschreiben und hashen, siehe {@link FakePermissible})
+ * mit der Prüfung über die vorab aufgelöste ID und die in der Session abgelegten Bitsets der Gruppe, wie sie
+ * PlayLegendTask#hasGroupPermission(UUID, int) ausführt.
+ * Etwa jede zehnte Abfrage betrifft einen Node, den keine Gruppe kennt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PermissionCheckBenchmark {
+
+    private static final int PLAYERS = 100;
+    private static final int QUERIES = 1024; // Zweierpotenz für die Maske
+    private static final String WORLD = "world";
+
+    @Param({"100", "1000"})
+    public int nodes;
+
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+    private PermissionIdRegistry permissionIds;
+    private FakePermissible[] permissibles;
+    private UUID[] queryPlayers;
+    private int[] queryPlayerIndexes;
+    private String[] queryNodes;
+    private int[] queryIds;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        permissionIds = new PermissionIdRegistry();
+
+        // Effektive Permissions einer Gruppe wie nach dem Kompilieren: jeder zehnte Node negiert
+        Map<String, Boolean> effective = new LinkedHashMap<>();
+        BitSet granted = new BitSet();
+        BitSet denied = new BitSet();
+        String[] knownNodes = new String[nodes];
+        for (int i = 0; i < nodes; i++) {
+            String node = "plugin" + (i % 20) + ".feature." + i;
+            boolean value = i % 10 != 0;
+            knownNodes[i] = node;
+            effective.put(node, value);
+            int id = permissionIds.intern(node);
+            (value ? granted : denied).set(id);
+        }
+        Group group = new Group(1, "vip", "&6[VIP] ", null)
+                .withEffectivePermissions(Map.copyOf(effective), Map.of(),
+                        new Group.PermissionBits(granted, denied), Map.of());
+
+        UUID[] players = new UUID[PLAYERS];
+        permissibles = new FakePermissible[PLAYERS];
+        Map<String, Boolean> registeredDefaults = new HashMap<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            PlayerSession session = new PlayerSession(uuid, new PlayerGroupInfo(uuid, group.getName(), null));
+            session.setGroup(group);
+            session.setPermissionBits(group.getPermissionBits(WORLD)); // Wie beim Setzen durch den PermissionManager
+            sessions.put(uuid, session);
+            players[i] = uuid;
+            permissibles[i] = new FakePermissible(effective, registeredDefaults);
+        }
+
+        queryPlayers = new UUID[QUERIES];
+        queryPlayerIndexes = new int[QUERIES];
+        queryNodes = new String[QUERIES];
+        queryIds = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int player = random.nextInt(PLAYERS);
+            String node = random.nextInt(10) == 0
+                    ? "other.plugin.node." + i
+                    : knownNodes[random.nextInt(nodes)];
+            queryPlayers[i] = players[player];
+            queryPlayerIndexes[i] = player;
+            queryNodes[i] = node;
+            // Andere Plugins lösen die ID einmal auf und merken sie sich
+            queryIds[i] = permissionIds.getId(node);
+        }
+        cursor = 0;
+    }
+
+    /**
+     * Player#hasPermission(String) über Bukkits PermissibleBase.
+     */
+    @Benchmark
+    public boolean bukkitHasPermission() {
+        int i = next();
+        return permissibles[queryPlayerIndexes[i]].hasPermission(queryNodes[i]);
+    }
+
+    /**
+     * Session-Lookup und Bit-Test mit vorab aufgelöster ID (wie PlayLegendTask#hasGroupPermission).
+     */
+    @Benchmark
+    public boolean groupHasPermissionId() {
+        int i = next();
+        PlayerSession session = sessions.get(queryPlayers[i]);
+        return session != null && session.getPermissionBits().isGranted(queryIds[i]);
+    }
+
+    /**
+     * Wie oben, aber die ID wird bei jeder Prüfung aus dem Node-String aufgelöst (Aufrufer ohne gemerkte ID).
+     */
+    @Benchmark
+    public boolean groupHasPermissionByName() {
+        int i = next();
+        PlayerSession session = sessions.get(queryPlayers[i]);
+        return session != null && session.getPermissionBits().isGranted(permissionIds.getId(queryNodes[i]));
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) & (QUERIES - 1);
+        return i;
+    }
+}
@@ -3,19 +3,24 @@ package eu.rawora.playLegendTask;
 import eu.rawora.playLegendTask.commands.GroupCommand;
 import eu.rawora.playLegendTask.commands.GroupInfoCommand;
 import eu.rawora.playLegendTask.commands.SetGroupCommand;
+import eu.rawora.playLegendTask.db.DatabaseExecutor;
 import eu.rawora.playLegendTask.db.DatabaseManager;
 import eu.rawora.playLegendTask.db.MySQLManager;
+import eu.rawora.playLegendTask.db.PlayerGroupWriteQueue;
 import eu.rawora.playLegendTask.db.SQLiteManager;
 import eu.rawora.playLegendTask.listeners.PlayerChatListener;
 import eu.rawora.playLegendTask.listeners.PlayerJoinQuitListener;
+import eu.rawora.playLegendTask.listeners.PlayerWorldChangeListener;
 import eu.rawora.playLegendTask.listeners.SignListener;
 import eu.rawora.playLegendTask.managers.*;
+import eu.rawora.playLegendTask.model.PlayerSession;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.Objects;
+import java.util.UUID;
 import java.util.logging.Level;
 
 public final class PlayLegendTask extends JavaPlugin {
@@ -25,7 +30,9 @@ public final class PlayLegendTask extends JavaPlugin {
 
     // Instanzen der Manager-Klassen
     private ConfigManager configManager;
+    private DatabaseExecutor databaseExecutor; // Eigener Executor (virtuelle Threads) für alle DB-Operationen
     private DatabaseManager databaseManager;
+    private PlayerGroupWriteQueue playerGroupWriteQueue; // Write-Behind für Gruppenzuweisungen
     private GroupManager groupManager;
     private PlayerDataManager playerDataManager;
     private PermissionManager permissionManager;
@@ -47,12 +54,16 @@ public final class PlayLegendTask extends JavaPlugin {
 
         // 2. DatabaseManager initialisieren und Datenbankverbindung aufbauen
         // (entscheidet basierend auf config.yml, ob SQLite oder MySQL)
+        // Der Executor muss vorher existieren, da die DatabaseManager ihn im Konstruktor übernehmen.
+        databaseExecutor = new DatabaseExecutor(this, configManager.getDatabaseMaxConcurrency());
         if (!initializeDatabase()) {
             // Wenn DB-Verbindung fehlschlägt, Plugin deaktivieren
             getLogger().severe("Database initialization failed! Disabling plugin.");
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
+        playerGroupWriteQueue = new PlayerGroupWriteQueue(this, databaseManager);
+        playerGroupWriteQueue.start();
 
         // 3. GroupManager initialisieren (verwaltet Gruppendefinitionen)
         // Lädt Gruppen aus der Datenbank in einen Cache
@@ -98,8 +109,22 @@ public final class PlayLegendTask extends JavaPlugin {
         if (playerDataManager != null) {
             playerDataManager.cleanupAllPlayers();
         }
+        if (permissionManager != null) {
+            permissionManager.unregisterGroupNodes(); // Registrierte Gruppen-Permissions wieder entfernen
+        }
+
+        // 3. Ausstehende Gruppenzuweisungen schreiben (muss vor dem Schließen der Verbindung passieren)
+        if (playerGroupWriteQueue != null) {
+            playerGroupWriteQueue.shutdown();
+        }
 
-        // 3. Datenbankverbindung schließen
+        // 4. Laufende DB-Aufgaben abarbeiten lassen, danach keine neuen mehr annehmen
+        if (databaseExecutor != null) {
+            databaseExecutor.shutdown(5000L);
+            getLogger().info(databaseExecutor.getStatsSummary());
+        }
+
+        // 5. Datenbankverbindung schließen
         if (databaseManager != null) {
             databaseManager.disconnect();
             getLogger().info("Database connection closed.");
@@ -166,6 +191,7 @@ public final class PlayLegendTask extends JavaPlugin {
         // Kern-Listener
         pm.registerEvents(new PlayerJoinQuitListener(this), this);
         pm.registerEvents(new PlayerChatListener(this), this);
+        pm.registerEvents(new PlayerWorldChangeListener(this), this);
 
         // Sign-Listener nur registrieren, wenn Schilder in der Config aktiviert sind
         if (configManager.isSignsEnabled()) {
@@ -191,10 +217,10 @@ public final class PlayLegendTask extends JavaPlugin {
             return;
         }
 
-        // Starte einen asynchronen, wiederholenden Task.
-        // Die eigentliche Block-Aktualisierung im SignManager wird dann wieder auf dem Hauptthread ausgeführt.
-        signUpdateTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
-            signManager.updateAllSigns(); // Diese Methode kümmert sich ums Thread-Management intern
+        // Starte einen wiederholenden Task im Hauptthread. Alle anderen Änderungen markieren ihre Schilder
+        // selbst, periodisch aktualisiert werden nur noch Countdown-Schilder (%expiry_time%).
+        signUpdateTask = Bukkit.getScheduler().runTaskTimer(this, () -> {
+            signManager.updateCountdownSigns();
         }, 100L, interval); // Wiederholung alle 'interval' Ticks
 
         getLogger().info("Sign update task scheduled to run every " + interval + " ticks.");
@@ -214,10 +240,18 @@ public final class PlayLegendTask extends JavaPlugin {
         return configManager;
     }
 
+    public DatabaseExecutor getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
     public DatabaseManager getDatabaseManager() {
         return databaseManager;
     }
 
+    public PlayerGroupWriteQueue getPlayerGroupWriteQueue() {
+        return playerGroupWriteQueue;
+    }
+
     public GroupManager getGroupManager() {
         return groupManager;
     }
@@ -233,4 +267,46 @@ public final class PlayLegendTask extends JavaPlugin {
     public SignManager getSignManager() {
         return signManager;
     }
+
+    // --- Öffentliche API für schnelle Permission-Prüfungen ---
+
+    /**
+     * Löst einen Permission-Node einmalig zu seiner ID auf. Die ID bleibt bis zum Serverneustart gültig
+     * und kann von anderen Plugins gespeichert und für {@link #hasGroupPermission(UUID, int)} benutzt werden.
+     *
+     * @param permission Der Node, z.B. "playlegend.fly".
+     * @return Die ID oder -1, wenn der Node keiner Gruppe bekannt ist.
+     */
+    public int getPermissionId(String permission) {
+        return groupManager.getPermissionIds().getId(permission);
+    }
+
+    /**
+     * Prüft in O(1) über das Bitset der Gruppe, ob die Gruppe eines Online-Spielers einen Node erlaubt
+     * (inkl. Vererbung, Wildcards und Welt-Einträgen für die aktuelle Welt des Spielers). Threadsicher.
+     * Kostet einen UUID-Lookup und einen Bit-Test: Die Bitsets werden beim Setzen der Permissions (Join,
+     * Gruppen- und Weltwechsel) in der Session abgelegt und entsprechen damit immer dem Stand des Attachments.
+     * Berücksichtigt nur die Gruppen-Permissions, keine anderer Plugins oder OP.
+     *
+     * @param uuid Die UUID des Spielers.
+     * @param permissionId Die ID aus {@link #getPermissionId(String)}.
+     * @return true, wenn die Gruppe den Node erlaubt; false, wenn nicht, oder wenn der Spieler nicht geladen ist.
+     */
+    public boolean hasGroupPermission(UUID uuid, int permissionId) {
+        PlayerSession session = playerDataManager.getSession(uuid);
+        return session != null && session.getPermissionBits().isGranted(permissionId);
+    }
+
+    /**
+     * Prüft in O(1), ob die Gruppe eines Online-Spielers einen Node in seiner aktuellen Welt explizit verbietet
+     * (Eintrag "-node" bzw. "welt:-node").
+     *
+     * @param uuid Die UUID des Spielers.
+     * @param permissionId Die ID aus {@link #getPermissionId(String)}.
+     * @return true, wenn der Node negiert ist.
+     */
+    public boolean isGroupPermissionDenied(UUID uuid, int permissionId) {
+        PlayerSession session = playerDataManager.getSession(uuid);
+        return session != null && session.getPermissionBits().isDenied(permissionId);
+    }
 }
\ No newline at end of file
@@ -23,7 +23,7 @@ public class GroupCommand implements CommandExecutor, TabCompleter {
     private final ConfigManager configManager;
 
     // Liste der Sub-Befehle für Tab-Completion
-    private static final List<String> SUB_COMMANDS = List.of("create", "delete", "list", "setprefix");
+    private static final List<String> SUB_COMMANDS = List.of("create", "delete", "list", "setprefix", "addperm", "removeperm", "perms", "setparent", "stats");
 
     public GroupCommand(PlayLegendTask plugin) {
         this.plugin = plugin;
@@ -61,6 +61,21 @@ public class GroupCommand implements CommandExecutor, TabCompleter {
             case "setprefix":
                 handleSetPrefix(sender, args);
                 break;
+            case "addperm":
+                handleAddPermission(sender, args);
+                break;
+            case "removeperm":
+                handleRemovePermission(sender, args);
+                break;
+            case "perms":
+                handlePermissions(sender, args);
+                break;
+            case "setparent":
+                handleSetParent(sender, args);
+                break;
+            case "stats":
+                handleStats(sender);
+                break;
             default:
                 sendUsage(sender, label);
                 break;
@@ -158,7 +173,8 @@ public class GroupCommand implements CommandExecutor, TabCompleter {
                     configManager.getFormattedMessage("group.list-entry",
                             "%group%", group.getName(),
                             // Hole farbigen Prefix aus Group-Objekt
-                            "%prefix%", group.getPrefix()) // getPrefix() gibt bereits farbigen String zurück
+                            "%prefix%", group.getPrefix(), // getPrefix() gibt bereits farbigen String zurück
+                            "%online%", String.valueOf(plugin.getPlayerDataManager().getOnlineMemberCount(group)))
             ));
         }
     }
@@ -193,6 +209,141 @@ public class GroupCommand implements CommandExecutor, TabCompleter {
         }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable));
     }
 
+    /** Behandelt den /group addperm <name> <permission> Befehl (z.B. "essentials.*", "-essentials.fly" oder "lobby:essentials.fly") */
+    private void handleAddPermission(CommandSender sender, String[] args) {
+        if (args.length != 3) {
+            sender.sendMessage(ChatColor.RED + "Usage: /group addperm <name> [world:]<permission>");
+            return;
+        }
+        String groupName = args[1];
+        String permission = args[2];
+        if (!groupManager.groupExists(groupName)) {
+            sender.sendMessage(configManager.getFormattedPrefixedMessage("error.group-not-found", "%group%", groupName));
+            return;
+        }
+
+        groupManager.addGroupPermission(groupName, permission).whenCompleteAsync((success, throwable) -> {
+            // Callback im Hauptthread
+            if (throwable != null) {
+                sender.sendMessage(ChatColor.RED + "An error occurred while adding the permission. Check console.");
+                plugin.getLogger().severe("Error adding permission to group '" + groupName + "': " + throwable.getMessage());
+                return;
+            }
+            if (success) {
+                sender.sendMessage(configManager.getFormattedPrefixedMessage("group.permission-added",
+                        "%group%", groupName, "%permission%", permission.toLowerCase()));
+            } else {
+                // Ungültig oder bereits vorhanden
+                sender.sendMessage(configManager.getFormattedPrefixedMessage("group.permission-not-added",
+                        "%group%", groupName, "%permission%", permission));
+            }
+        }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable));
+    }
+
+    /** Behandelt den /group removeperm <name> <permission> Befehl */
+    private void handleRemovePermission(CommandSender sender, String[] args) {
+        if (args.length != 3) {
+            sender.sendMessage(ChatColor.RED + "Usage: /group removeperm <name> [world:]<permission>");
+            return;
+        }
+        String groupName = args[1];
+        String permission = args[2];
+        if (!groupManager.groupExists(groupName)) {
+            sender.sendMessage(configManager.getFormattedPrefixedMessage("error.group-not-found", "%group%", groupName));
+            return;
+        }
+
+        groupManager.removeGroupPermission(groupName, permission).whenCompleteAsync((success, throwable) -> {
+            // Callback im Hauptthread
+            if (throwable != null) {
+                sender.sendMessage(ChatColor.RED + "An error occurred while removing the permission. Check console.");
+                plugin.getLogger().severe("Error removing permission from group '" + groupName + "': " + throwable.getMessage());
+                return;
+            }
+            if (success) {
+                sender.sendMessage(configManager.getFormattedPrefixedMessage("group.permission-removed",
+                        "%group%", groupName, "%permission%", permission.toLowerCase()));
+            } else {
+                sender.sendMessage(configManager.getFormattedPrefixedMessage("group.permission-not-found",
+                        "%group%", groupName, "%permission%", permission));
+            }
+        }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable));
+    }
+
+    /** Behandelt den /group perms <name> Befehl (listet die Permission-Einträge einer Gruppe) */
+    private void handlePermissions(CommandSender sender, String[] args) {
+        if (args.length != 2) {
+            sender.sendMessage(ChatColor.RED + "Usage: /group perms <name>");
+            return;
+        }
+        Group group = groupManager.getGroup(args[1]);
+        if (group == null) {
+            sender.sendMessage(configManager.getFormattedPrefixedMessage("error.group-not-found", "%group%", args[1]));
+            return;
+        }
+        sender.sendMessage(configManager.getFormattedMessage("group.perms-header", "%group%", group.getName()));
+        if (group.getParentName() != null) {
+            sender.sendMessage(configManager.getFormattedMessage("group.perms-parent", "%parent%", group.getParentName()));
+        }
+        if (group.getPermissions().isEmpty()) {
+            sender.sendMessage(configManager.getMessage("group.perms-empty"));
+        }
+        for (String entry : group.getPermissions()) {
+            sender.sendMessage(configManager.getFormattedMessage("group.perms-entry", "%permission%", entry));
+        }
+        sender.sendMessage(ChatColor.GRAY + "(" + group.getCompiledPermissions().size() + " own / "
+                + group.getEffectivePermissions().size() + " effective compiled nodes, "
+                + group.getEffectiveWorldPermissions().size() + " world override(s))");
+    }
+
+    /** Behandelt den /group setparent <name> <parent|none> Befehl */
+    private void handleSetParent(CommandSender sender, String[] args) {
+        if (args.length != 3) {
+            sender.sendMessage(ChatColor.RED + "Usage: /group setparent <name> <parent|none>");
+            return;
+        }
+        String groupName = args[1];
+        String parentName = args[2].equalsIgnoreCase("none") ? null : args[2];
+        if (!groupManager.groupExists(groupName)) {
+            sender.sendMessage(configManager.getFormattedPrefixedMessage("error.group-not-found", "%group%", groupName));
+            return;
+        }
+        if (parentName != null && !groupManager.groupExists(parentName)) {
+            sender.sendMessage(configManager.getFormattedPrefixedMessage("error.group-not-found", "%group%", parentName));
+            return;
+        }
+
+        groupManager.setGroupParent(groupName, parentName).whenCompleteAsync((success, throwable) -> {
+            // Callback im Hauptthread
+            if (throwable != null) {
+                sender.sendMessage(ChatColor.RED + "An error occurred while setting the parent. Check console.");
+                plugin.getLogger().severe("Error setting parent for group '" + groupName + "': " + throwable.getMessage());
+                return;
+            }
+            if (!success) {
+                sender.sendMessage(configManager.getFormattedPrefixedMessage("group.parent-cycle",
+                        "%group%", groupName, "%parent%", String.valueOf(parentName)));
+            } else if (parentName == null) {
+                sender.sendMessage(configManager.getFormattedPrefixedMessage("group.parent-removed", "%group%", groupName));
+            } else {
+                sender.sendMessage(configManager.getFormattedPrefixedMessage("group.parent-set",
+                        "%group%", groupName, "%parent%", parentName));
+            }
+        }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable));
+    }
+
+    /** Behandelt den /group stats Befehl (Performance-Metriken der internen Subsysteme) */
+    private void handleStats(CommandSender sender) {
+        sender.sendMessage(ChatColor.YELLOW + "--- PLTask Stats ---");
+        sender.sendMessage(ChatColor.GRAY + plugin.getDatabaseExecutor().getStatsSummary());
+        sender.sendMessage(ChatColor.GRAY + plugin.getPlayerGroupWriteQueue().getStatsSummary());
+        sender.sendMessage(ChatColor.GRAY + plugin.getPlayerDataManager().getSidebarStats().getStatsSummary());
+        sender.sendMessage(ChatColor.GRAY + plugin.getPlayerDataManager().getSessionStatsSummary());
+        sender.sendMessage(ChatColor.GRAY + plugin.getPermissionManager().getStatsSummary());
+        sender.sendMessage(ChatColor.GRAY + plugin.getPlayerDataManager().getRecalculationScheduler().getStatsSummary());
+        sender.sendMessage(ChatColor.GRAY + plugin.getSignManager().getStatsSummary());
+    }
+
     /** Implementierung für Tab-Completion */
     @Nullable
     @Override
@@ -210,8 +361,9 @@ public class GroupCommand implements CommandExecutor, TabCompleter {
 
         if (args.length == 2) {
             String subCommand = args[0].toLowerCase();
-            // Für 'delete' und 'setprefix' brauchen wir Gruppennamen
-            if (subCommand.equals("delete") || subCommand.equals("setprefix")) {
+            // Für 'delete', 'setprefix' und die Permission-Befehle brauchen wir Gruppennamen
+            if (subCommand.equals("delete") || subCommand.equals("setprefix") || subCommand.equals("addperm")
+                    || subCommand.equals("removeperm") || subCommand.equals("perms") || subCommand.equals("setparent")) {
                 // Hole alle Gruppennamen aus dem Cache
                 return groupManager.getAllGroups().stream()
                         .map(Group::getName)
@@ -223,6 +375,25 @@ public class GroupCommand implements CommandExecutor, TabCompleter {
             // Für 'list' gibt es keine weiteren Argumente
         }
 
+        if (args.length == 3 && args[0].equalsIgnoreCase("setparent")) {
+            List<String> options = new ArrayList<>();
+            options.add("none");
+            groupManager.getAllGroups().forEach(group -> options.add(group.getName()));
+            return options.stream()
+                    .filter(name -> name.toLowerCase().startsWith(args[2].toLowerCase()))
+                    .collect(Collectors.toList());
+        }
+
+        if (args.length == 3 && args[0].equalsIgnoreCase("removeperm")) {
+            // Vorhandene Einträge der Gruppe vorschlagen
+            Group group = groupManager.getGroup(args[1]);
+            if (group != null) {
+                return group.getPermissions().stream()
+                        .filter(entry -> entry.startsWith(args[2].toLowerCase()))
+                        .collect(Collectors.toList());
+            }
+        }
+
         if (args.length >= 3 && args[0].equalsIgnoreCase("setprefix")) {
             // Hier könnte man ggf Farb-Codes (&0-&9, &a-&f, &k-&o, &r) vorschlagen ?
             // wenn das letzte Argument mit '&' beginnt.
@@ -61,7 +61,7 @@ public class GroupInfoCommand implements CommandExecutor {
             player.sendMessage(configManager.getMessage("groupinfo.expiry-permanent"));
         } else {
             // Berechne verbleibende Zeit
-            long remainingMillis = info.getExpiryTime() - System.currentTimeMillis();
+            long remainingMillis = info.expiryTime() - System.currentTimeMillis();
             if (remainingMillis <= 0) {
                 // Sollte durch Expiry-Check im PlayerDataManager behandelt werden, aber als Fallback
                 player.sendMessage(configManager.getFormattedMessage("groupinfo.expiry-temporary", "%time%", "Expired"));
@@ -0,0 +1,220 @@
+package eu.rawora.playLegendTask.db;
+
+import eu.rawora.playLegendTask.PlayLegendTask;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Plugin-eigener Executor für alle Datenbankoperationen.
+ * Jede Aufgabe läuft auf einem eigenen virtuellen Thread, die Anzahl gleichzeitiger Aufgaben ist begrenzt
+ * (passend zur Größe des Connection Pools). Aufgaben werden über zwei Lanes eingereiht:
+ * INTERACTIVE (Join-Loads, Befehle) wird immer vor BACKGROUND (Schilder, Flushes, Sweeps) abgearbeitet.
+ * So teilen wir uns nicht mehr den Bukkit-Async-Pool mit anderen Plugins.
+ */
+public class DatabaseExecutor {
+
+    /**
+     * Prioritätsstufen. Die Reihenfolge der Konstanten ist die Abarbeitungsreihenfolge.
+     */
+    public enum Lane {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private final PlayLegendTask plugin;
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("PLTask-DB-", 0).factory();
+    private final Semaphore workerPermits;
+    private final int maxConcurrency;
+    private final LaneState[] lanes = new LaneState[Lane.values().length];
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private volatile boolean shutdown = false;
+
+    // Executor-Views, damit nicht bei jedem Aufruf ein neues Lambda entsteht
+    private final Executor interactiveExecutor = runnable -> submit(Lane.INTERACTIVE, runnable);
+    private final Executor backgroundExecutor = runnable -> submit(Lane.BACKGROUND, runnable);
+
+    /**
+     * Warteschlange und Metriken einer Lane.
+     */
+    private static final class LaneState {
+        final Queue<QueuedTask> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger depth = new AtomicInteger(); // ConcurrentLinkedQueue.size() ist O(n)
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+    }
+
+    private record QueuedTask(Runnable runnable, Lane lane, long enqueuedAt) {
+    }
+
+    public DatabaseExecutor(PlayLegendTask plugin, int maxConcurrency) {
+        this.plugin = plugin;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.workerPermits = new Semaphore(this.maxConcurrency);
+        for (Lane lane : Lane.values()) {
+            lanes[lane.ordinal()] = new LaneState();
+        }
+    }
+
+    /**
+     * Gibt einen Executor für die angegebene Lane zurück (z.B. für CompletableFuture.supplyAsync).
+     * @param lane Die gewünschte Lane.
+     * @return Executor, der Aufgaben in diese Lane einreiht.
+     */
+    public Executor lane(Lane lane) {
+        return lane == Lane.INTERACTIVE ? interactiveExecutor : backgroundExecutor;
+    }
+
+    /**
+     * Reiht eine Aufgabe in die angegebene Lane ein.
+     * @param lane Die Lane.
+     * @param runnable Die Aufgabe.
+     * @throws RejectedExecutionException Wenn der Executor bereits heruntergefahren wurde.
+     */
+    public void submit(Lane lane, Runnable runnable) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Database executor has been shut down");
+        }
+        LaneState state = lanes[lane.ordinal()];
+        state.submitted.incrementAndGet();
+        state.depth.incrementAndGet();
+        state.queue.add(new QueuedTask(runnable, lane, System.nanoTime()));
+        tryStartWorker();
+    }
+
+    /**
+     * Startet einen neuen virtuellen Worker, falls das Concurrency-Limit es zulässt.
+     */
+    private void tryStartWorker() {
+        if (!workerPermits.tryAcquire()) return; // Laufende Worker übernehmen die Aufgabe
+        activeWorkers.incrementAndGet();
+        threadFactory.newThread(this::workerLoop).start();
+    }
+
+    /**
+     * Arbeitet Aufgaben ab, bis beide Lanes leer sind. INTERACTIVE wird immer zuerst geprüft.
+     */
+    private void workerLoop() {
+        try {
+            QueuedTask task;
+            while ((task = pollNext()) != null) {
+                run(task);
+            }
+        } finally {
+            activeWorkers.decrementAndGet();
+            workerPermits.release();
+        }
+        // Eine Aufgabe kann eingereiht worden sein, während wir den Permit noch hielten
+        if (hasQueuedTasks()) {
+            tryStartWorker();
+        }
+    }
+
+    private QueuedTask pollNext() {
+        for (LaneState state : lanes) {
+            QueuedTask task = state.queue.poll();
+            if (task != null) {
+                state.depth.decrementAndGet();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void run(QueuedTask task) {
+        LaneState state = lanes[task.lane().ordinal()];
+        long waited = System.nanoTime() - task.enqueuedAt();
+        state.totalWaitNanos.addAndGet(waited);
+        state.maxWaitNanos.accumulateAndGet(waited, Math::max);
+        try {
+            task.runnable().run();
+        } catch (Throwable t) {
+            // CompletableFuture fängt seine Exceptions selbst, hier landen nur "rohe" Runnables
+            plugin.getLogger().log(Level.SEVERE, "Uncaught exception in database task (" + task.lane() + " lane)", t);
+        } finally {
+            state.completed.incrementAndGet();
+        }
+    }
+
+    private boolean hasQueuedTasks() {
+        for (LaneState state : lanes) {
+            if (!state.queue.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Nimmt keine neuen Aufgaben mehr an und wartet, bis alle eingereihten Aufgaben erledigt sind.
+     * Wird in onDisable vor dem Schließen der Datenbankverbindung aufgerufen.
+     * @param timeoutMillis Maximale Wartezeit in Millisekunden.
+     */
+    public void shutdown(long timeoutMillis) {
+        shutdown = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while ((hasQueuedTasks() || activeWorkers.get() > 0) && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (hasQueuedTasks() || activeWorkers.get() > 0) {
+            plugin.getLogger().warning("Database executor did not drain within " + timeoutMillis + " ms. " + getStatsSummary());
+        }
+    }
+
+    // --- Metriken ---
+
+    /** @return Anzahl wartender Aufgaben in der Lane. */
+    public int getQueueDepth(Lane lane) {
+        return lanes[lane.ordinal()].depth.get();
+    }
+
+    /** @return Anzahl abgeschlossener Aufgaben in der Lane. */
+    public long getCompletedTasks(Lane lane) {
+        return lanes[lane.ordinal()].completed.get();
+    }
+
+    /** @return Durchschnittliche Wartezeit (Einreihen bis Start) in Millisekunden. */
+    public double getAverageWaitMillis(Lane lane) {
+        LaneState state = lanes[lane.ordinal()];
+        long completed = state.completed.get();
+        return completed == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(state.totalWaitNanos.get() / completed) / 1000.0;
+    }
+
+    /** @return Längste Wartezeit in Millisekunden. */
+    public double getMaxWaitMillis(Lane lane) {
+        return TimeUnit.NANOSECONDS.toMicros(lanes[lane.ordinal()].maxWaitNanos.get()) / 1000.0;
+    }
+
+    /** @return Anzahl aktuell laufender virtueller Worker. */
+    public int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+
+    /**
+     * Fasst die Metriken in einer Zeile zusammen (für Log und /group stats).
+     * @return Lesbare Zusammenfassung.
+     */
+    public String getStatsSummary() {
+        StringBuilder sb = new StringBuilder("DB executor: workers=")
+                .append(getActiveWorkers()).append('/').append(maxConcurrency);
+        for (Lane lane : Lane.values()) {
+            sb.append(String.format(", %s depth=%d done=%d wait avg/max=%.2f/%.2f ms",
+                    lane.name().toLowerCase(), getQueueDepth(lane), getCompletedTasks(lane),
+                    getAverageWaitMillis(lane), getMaxWaitMillis(lane)));
+        }
+        return sb.toString();
+    }
+}
@@ -4,6 +4,8 @@ import eu.rawora.playLegendTask.model.Group;
 import eu.rawora.playLegendTask.model.PlayerGroupInfo;
 import org.bukkit.Location;
 
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -41,7 +43,7 @@ public interface DatabaseManager {
     CompletableFuture<Void> saveGroupAsync(Group group);
 
     /**
-     * Löscht eine Gruppe anhand ihres Namens.
+     * Löscht eine Gruppe anhand ihres Namens. Gruppen, die von ihr geerbt haben, verlieren ihre Eltern-Gruppe.
      * @param groupName Der Name der zu löschenden Gruppe.
      * @return Ein CompletableFuture, das abgeschlossen wird, wenn die Operation beendet ist.
      */
@@ -68,6 +70,38 @@ public interface DatabaseManager {
      */
     CompletableFuture<Void> updateGroupPrefixAsync(String groupName, String prefix);
 
+    /**
+     * Setzt die Eltern-Gruppe einer Gruppe (Vererbung von Permissions und Prefix).
+     * @param groupName Der Name der Gruppe.
+     * @param parentName Der Name der Eltern-Gruppe oder null, um die Vererbung zu entfernen.
+     * @return Ein CompletableFuture, das abgeschlossen wird, wenn die Operation beendet ist.
+     */
+    CompletableFuture<Void> updateGroupParentAsync(String groupName, String parentName);
+
+    // --- Gruppen-Permissions ---
+
+    /**
+     * Holt die Permission-Einträge aller Gruppen auf einmal (Tabelle group_permissions).
+     * @return Ein CompletableFuture mit Gruppenname -> Einträge (z.B. "a.b.*", "-a.b.c"). Gruppen ohne Einträge fehlen.
+     */
+    CompletableFuture<Map<String, List<String>>> getAllGroupPermissionsAsync();
+
+    /**
+     * Fügt einer Gruppe einen Permission-Eintrag hinzu (ein bereits vorhandener Eintrag wird ignoriert).
+     * @param groupName Der Name der Gruppe.
+     * @param permission Der normalisierte Eintrag.
+     * @return Ein CompletableFuture, das abgeschlossen wird, wenn die Operation beendet ist.
+     */
+    CompletableFuture<Void> addGroupPermissionAsync(String groupName, String permission);
+
+    /**
+     * Entfernt einen Permission-Eintrag einer Gruppe.
+     * @param groupName Der Name der Gruppe.
+     * @param permission Der normalisierte Eintrag.
+     * @return Ein CompletableFuture, das abgeschlossen wird, wenn die Operation beendet ist.
+     */
+    CompletableFuture<Void> removeGroupPermissionAsync(String groupName, String permission);
+
     // --- Spieler-Operationen (Player Assignments) ---
 
     /**
@@ -80,6 +114,17 @@ public interface DatabaseManager {
      */
     CompletableFuture<Void> setPlayerGroupAsync(UUID playerUUID, String groupName, Long expiryTime);
 
+    /**
+     * Schreibt mehrere Gruppenzuweisungen als einen JDBC-Batch in einer Transaktion.
+     * ACHTUNG: Blockierend! Wird von der PlayerGroupWriteQueue aus einem Async-Thread
+     * oder beim Deaktivieren des Plugins (dort ist kein Scheduler mehr verfügbar) aufgerufen.
+     * @param infos Die zu speichernden Zuweisungen (pro UUID höchstens ein Eintrag).
+     * @param lane  Die Lane des Aufrufers (INTERACTIVE nur, wenn jemand auf den Flush wartet). Implementierungen
+     *              mit eigener Schreib-Queue (SQLite) reihen den Batch dort mit dieser Priorität ein.
+     * @throws SQLException Wenn der Batch fehlschlägt (die Transaktion wird zurückgerollt).
+     */
+    void setPlayerGroupsBatch(Collection<PlayerGroupInfo> infos, DatabaseExecutor.Lane lane) throws SQLException;
+
     /**
      * Holt die Gruppeninformationen für einen Spieler.
      * @param playerUUID Die UUID des Spielers.
@@ -87,6 +132,14 @@ public interface DatabaseManager {
      */
     CompletableFuture<PlayerGroupInfo> getPlayerGroupInfoAsync(UUID playerUUID);
 
+    /**
+     * Holt die Gruppeninformationen für mehrere Spieler auf einmal (gestückelte IN (...)-Abfragen).
+     * Gedacht für den Start/Reload, damit nicht pro Online-Spieler eine eigene Abfrage nötig ist.
+     * @param playerUUIDs Die UUIDs der Spieler.
+     * @return Ein CompletableFuture mit UUID -> PlayerGroupInfo. Spieler ohne (gültigen) Eintrag fehlen in der Map.
+     */
+    CompletableFuture<Map<UUID, PlayerGroupInfo>> getPlayerGroupInfosAsync(Collection<UUID> playerUUIDs);
+
     /**
      * Entfernt explizit die Gruppenzuweisung eines Spielers (selten nötig, da setPlayerGroup überschreibt).
      * @param playerUUID Die UUID des Spielers.
@@ -12,15 +12,26 @@ import org.bukkit.World;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
 public class MySQLManager implements DatabaseManager {
 
+    private static final String UPSERT_PLAYER_GROUP_SQL = "INSERT INTO `player_groups` (`uuid`, `group_name`, `expiry_time`) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE `group_name` = VALUES(`group_name`), `expiry_time` = VALUES(`expiry_time`)";
+    // Maximale Anzahl an Parametern pro IN (...)-Abfrage beim Bulk-Laden
+    private static final int MAX_IN_CLAUSE_SIZE = 500;
+
     private final PlayLegendTask plugin;
+    // Lanes des plugin-eigenen DatabaseExecutors (statt Bukkit-Async-Pool)
+    private final Executor interactiveExecutor;
+    private final Executor backgroundExecutor;
     private HikariDataSource dataSource; // Connection Pool
 
     public MySQLManager(PlayLegendTask plugin) {
         this.plugin = plugin;
+        this.interactiveExecutor = plugin.getDatabaseExecutor().lane(DatabaseExecutor.Lane.INTERACTIVE);
+        this.backgroundExecutor = plugin.getDatabaseExecutor().lane(DatabaseExecutor.Lane.BACKGROUND);
     }
 
     /**
@@ -103,7 +114,10 @@ public class MySQLManager implements DatabaseManager {
         // Führe Tabellenerstellung SYNCHRON aus.
         String groupsTable = "CREATE TABLE IF NOT EXISTS `groups` ("
                 + "`name` VARCHAR(36) PRIMARY KEY NOT NULL,"
-                + "`prefix` VARCHAR(255)"
+                + "`id` INT NULL,"
+                + "`prefix` VARCHAR(255),"
+                + "`parent` VARCHAR(36) NULL,"
+                + "UNIQUE KEY `uk_groups_id` (`id`)"
                 + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;";
 
         String playerGroupsTable = "CREATE TABLE IF NOT EXISTS `player_groups` ("
@@ -114,6 +128,13 @@ public class MySQLManager implements DatabaseManager {
                 + "INDEX `idx_group_name` (`group_name`)"
                 + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;";
 
+        String groupPermissionsTable = "CREATE TABLE IF NOT EXISTS `group_permissions` ("
+                + "`group_name` VARCHAR(36) NOT NULL,"
+                + "`permission` VARCHAR(191) NOT NULL,"
+                + "PRIMARY KEY (`group_name`, `permission`),"
+                + "FOREIGN KEY (`group_name`) REFERENCES `groups`(`name`) ON DELETE CASCADE"
+                + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;";
+
         String signsTable = "CREATE TABLE IF NOT EXISTS `signs` ("
                 + "`world` VARCHAR(255) NOT NULL,"
                 + "`x` INT NOT NULL,"
@@ -125,7 +146,10 @@ public class MySQLManager implements DatabaseManager {
 
         try (Connection conn = getConnection(); Statement statement = conn.createStatement()) {
             statement.execute(groupsTable);
+            migrateGroupsParentColumn(conn);
+            migrateGroupsIdColumn(conn);
             statement.execute(playerGroupsTable);
+            statement.execute(groupPermissionsTable);
             statement.execute(signsTable);
             plugin.getLogger().info("MySQL tables checked/created successfully.");
         } catch (SQLException e) {
@@ -134,71 +158,127 @@ public class MySQLManager implements DatabaseManager {
         }
     }
 
+    /**
+     * Ergänzt die Spalte `parent` in bestehenden `groups`-Tabellen (ältere Versionen ohne Vererbung).
+     */
+    private void migrateGroupsParentColumn(Connection conn) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "groups", "parent")) {
+            if (rs.next()) return; // Bereits vorhanden
+        }
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("ALTER TABLE `groups` ADD COLUMN `parent` VARCHAR(36) NULL");
+        }
+        plugin.getLogger().info("Migrated table 'groups': added column 'parent'.");
+    }
+
+    /**
+     * Ergänzt die Spalte `id` in bestehenden `groups`-Tabellen und vergibt fehlende IDs
+     * (fortlaufend nach Namen, hinter der höchsten vorhandenen ID).
+     */
+    private void migrateGroupsIdColumn(Connection conn) throws SQLException {
+        boolean exists;
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, "groups", "id")) {
+            exists = rs.next();
+        }
+        try (Statement statement = conn.createStatement()) {
+            if (!exists) {
+                statement.execute("ALTER TABLE `groups` ADD COLUMN `id` INT NULL, ADD UNIQUE KEY `uk_groups_id` (`id`)");
+                plugin.getLogger().info("Migrated table 'groups': added column 'id'.");
+            }
+            int nextId;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(`id`), 0) FROM `groups`")) {
+                nextId = rs.next() ? rs.getInt(1) + 1 : 1;
+            }
+            List<String> missing = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("SELECT `name` FROM `groups` WHERE `id` IS NULL ORDER BY `name`")) {
+                while (rs.next()) {
+                    missing.add(rs.getString(1));
+                }
+            }
+            if (missing.isEmpty()) return;
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE `groups` SET `id` = ? WHERE `name` = ?")) {
+                for (String name : missing) {
+                    pstmt.setInt(1, nextId++);
+                    pstmt.setString(2, name);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            plugin.getLogger().info("Assigned IDs to " + missing.size() + " existing group(s).");
+        }
+    }
+
     // --- Implementierung der Interface-Methoden (asynchron mit MySQL Syntax) ---
 
     @Override
     public CompletableFuture<Void> saveGroupAsync(Group group) {
         return CompletableFuture.runAsync(() -> {
-            String sql = "INSERT INTO `groups` (`name`, `prefix`) VALUES (?, ?) ON DUPLICATE KEY UPDATE `prefix` = VALUES(`prefix`)";
+            String sql = "INSERT INTO `groups` (`name`, `id`, `prefix`, `parent`) VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE `id` = VALUES(`id`), `prefix` = VALUES(`prefix`), `parent` = VALUES(`parent`)";
             try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, group.getName());
-                pstmt.setString(2, group.getRawPrefix());
+                pstmt.setInt(2, group.getId());
+                pstmt.setString(3, group.getRawPrefix());
+                pstmt.setString(4, group.getParentName());
                 pstmt.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not save group: " + group.getName(), e);
                 throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteGroupAsync(String groupName) {
          return CompletableFuture.runAsync(() -> {
             String sql = "DELETE FROM `groups` WHERE `name` = ?";
-            try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql);
+                 PreparedStatement orphans = conn.prepareStatement("UPDATE `groups` SET `parent` = NULL WHERE `parent` = ?")) {
                 pstmt.setString(1, groupName);
                 pstmt.executeUpdate();
+                orphans.setString(1, groupName); // Kinder erben ab jetzt von niemandem mehr
+                orphans.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not delete group: " + groupName, e);
                  throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
     }
 
     @Override
     public CompletableFuture<Group> getGroupAsync(String groupName) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT `prefix` FROM `groups` WHERE `name` = ?";
+            String sql = "SELECT `id`, `prefix`, `parent` FROM `groups` WHERE `name` = ?";
             try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, groupName);
                 ResultSet rs = pstmt.executeQuery();
                 if (rs.next()) {
-                    return new Group(groupName, rs.getString("prefix"));
+                    return new Group(rs.getInt("id"), groupName, rs.getString("prefix"), rs.getString("parent"));
                 }
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not get group: " + groupName, e);
                  throw new RuntimeException(e);
             }
             return null; // Nicht gefunden
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
     }
 
     @Override
     public CompletableFuture<List<Group>> getAllGroupsAsync() {
         return CompletableFuture.supplyAsync(() -> {
             List<Group> groups = new ArrayList<>();
-            String sql = "SELECT `name`, `prefix` FROM `groups`";
+            String sql = "SELECT `id`, `name`, `prefix`, `parent` FROM `groups`";
              try (Connection conn = getConnection(); Statement stmt = conn.createStatement();
                   ResultSet rs = stmt.executeQuery(sql)) {
                 while (rs.next()) {
-                    groups.add(new Group(rs.getString("name"), rs.getString("prefix")));
+                    groups.add(new Group(rs.getInt("id"), rs.getString("name"), rs.getString("prefix"), rs.getString("parent")));
                 }
             } catch (SQLException e) {
                  plugin.getLogger().log(Level.SEVERE, "Could not get all groups", e);
                  throw new RuntimeException(e);
             }
             return groups;
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
     }
 
     @Override
@@ -213,28 +293,118 @@ public class MySQLManager implements DatabaseManager {
                 plugin.getLogger().log(Level.SEVERE, "Could not update prefix for group: " + groupName, e);
                  throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
     }
 
     @Override
-    public CompletableFuture<Void> setPlayerGroupAsync(UUID playerUUID, String groupName, Long expiryTime) {
+    public CompletableFuture<Void> updateGroupParentAsync(String groupName, String parentName) {
         return CompletableFuture.runAsync(() -> {
-            String sql = "INSERT INTO `player_groups` (`uuid`, `group_name`, `expiry_time`) VALUES (?, ?, ?) " +
-                         "ON DUPLICATE KEY UPDATE `group_name` = VALUES(`group_name`), `expiry_time` = VALUES(`expiry_time`)";
+            String sql = "UPDATE `groups` SET `parent` = ? WHERE `name` = ?";
             try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, playerUUID.toString());
-                pstmt.setString(2, groupName); // Gruppenname
-                if (expiryTime == null) {
-                    pstmt.setNull(3, Types.BIGINT); // BIGINT für MySQL Timestamps
-                } else {
-                    pstmt.setLong(3, expiryTime);
+                pstmt.setString(1, parentName);
+                pstmt.setString(2, groupName);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not update parent for group: " + groupName, e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, List<String>>> getAllGroupPermissionsAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, List<String>> permissions = new HashMap<>();
+            String sql = "SELECT `group_name`, `permission` FROM `group_permissions`";
+            try (Connection conn = getConnection(); Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    permissions.computeIfAbsent(rs.getString("group_name"), k -> new ArrayList<>()).add(rs.getString("permission"));
                 }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not get group permissions", e);
+                throw new RuntimeException(e);
+            }
+            return permissions;
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> addGroupPermissionAsync(String groupName, String permission) {
+        return CompletableFuture.runAsync(() -> {
+            String sql = "INSERT IGNORE INTO `group_permissions` (`group_name`, `permission`) VALUES (?, ?)";
+            try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, groupName);
+                pstmt.setString(2, permission);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not add permission '" + permission + "' to group: " + groupName, e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeGroupPermissionAsync(String groupName, String permission) {
+        return CompletableFuture.runAsync(() -> {
+            String sql = "DELETE FROM `group_permissions` WHERE `group_name` = ? AND `permission` = ?";
+            try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, groupName);
+                pstmt.setString(2, permission);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not remove permission '" + permission + "' from group: " + groupName, e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> setPlayerGroupAsync(UUID playerUUID, String groupName, Long expiryTime) {
+        return CompletableFuture.runAsync(() -> {
+            try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(UPSERT_PLAYER_GROUP_SQL)) {
+                bindPlayerGroup(pstmt, playerUUID, groupName, expiryTime);
                 pstmt.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not set player group for " + playerUUID, e);
                 throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public void setPlayerGroupsBatch(Collection<PlayerGroupInfo> infos, DatabaseExecutor.Lane lane) throws SQLException {
+        // Läuft bereits im Thread des Aufrufers (in dessen Lane), der Pool braucht keine eigene Priorisierung
+        if (infos.isEmpty()) return;
+        try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(UPSERT_PLAYER_GROUP_SQL)) {
+            conn.setAutoCommit(false); // Ganzer Batch in einer Transaktion
+            try {
+                for (PlayerGroupInfo info : infos) {
+                    bindPlayerGroup(pstmt, info.playerUUID(), info.groupName(), info.expiryTime());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch(); // Dank rewriteBatchedStatements wird daraus ein Multi-Row-Insert
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Setzt die Parameter für UPSERT_PLAYER_GROUP_SQL.
+     */
+    private void bindPlayerGroup(PreparedStatement pstmt, UUID playerUUID, String groupName, Long expiryTime) throws SQLException {
+        pstmt.setString(1, playerUUID.toString());
+        pstmt.setString(2, groupName); // Gruppenname
+        if (expiryTime == null) {
+            pstmt.setNull(3, Types.BIGINT); // BIGINT für MySQL Timestamps
+        } else {
+            pstmt.setLong(3, expiryTime);
+        }
     }
 
     @Override
@@ -259,7 +429,44 @@ public class MySQLManager implements DatabaseManager {
                  throw new RuntimeException(e);
             }
             return null; // Nicht gefunden
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, PlayerGroupInfo>> getPlayerGroupInfosAsync(Collection<UUID> playerUUIDs) {
+        List<UUID> uuids = List.copyOf(playerUUIDs); // Snapshot, da die Abfrage asynchron läuft
+        return CompletableFuture.supplyAsync(() -> {
+            Map<UUID, PlayerGroupInfo> result = new HashMap<>();
+            try (Connection conn = getConnection()) {
+                for (int start = 0; start < uuids.size(); start += MAX_IN_CLAUSE_SIZE) {
+                    List<UUID> chunk = uuids.subList(start, Math.min(start + MAX_IN_CLAUSE_SIZE, uuids.size()));
+                    String sql = "SELECT `uuid`, `group_name`, `expiry_time` FROM `player_groups` WHERE `uuid` IN ("
+                            + "?,".repeat(chunk.size() - 1) + "?)";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setString(i + 1, chunk.get(i).toString());
+                        }
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                UUID uuid = UUID.fromString(rs.getString("uuid"));
+                                String groupName = rs.getString("group_name");
+                                if (groupName == null) {
+                                    plugin.getLogger().warning("Player " + uuid + " references a NULL group (likely deleted).");
+                                    continue;
+                                }
+                                long expiryTimestamp = rs.getLong("expiry_time");
+                                Long expiry = rs.wasNull() ? null : expiryTimestamp;
+                                result.put(uuid, new PlayerGroupInfo(uuid, groupName, expiry));
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not bulk load player group info for " + uuids.size() + " players", e);
+                throw new RuntimeException(e);
+            }
+            return result;
+        }, interactiveExecutor);
     }
 
     @Override
@@ -273,7 +480,7 @@ public class MySQLManager implements DatabaseManager {
                 plugin.getLogger().log(Level.SEVERE, "Could not remove player group data for " + playerUUID, e);
                 throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, backgroundExecutor);
     }
 
     @Override
@@ -292,7 +499,7 @@ public class MySQLManager implements DatabaseManager {
                  plugin.getLogger().log(Level.SEVERE, "Could not save sign location: " + location, e);
                  throw new RuntimeException(e);
              }
-         }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+         }, backgroundExecutor);
     }
 
     @Override
@@ -309,7 +516,7 @@ public class MySQLManager implements DatabaseManager {
                  plugin.getLogger().log(Level.SEVERE, "Could not delete sign location: " + location, e);
                  throw new RuntimeException(e);
              }
-         }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+         }, backgroundExecutor);
     }
 
     @Override
@@ -333,6 +540,6 @@ public class MySQLManager implements DatabaseManager {
                  throw new RuntimeException(e);
              }
              return signLocations;
-         }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+         }, backgroundExecutor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,419 @@
+package eu.rawora.playLegendTask.db;
+
+import eu.rawora.playLegendTask.PlayLegendTask;
+import eu.rawora.playLegendTask.model.PlayerGroupInfo;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Write-Behind-Puffer für Spieler-Gruppenzuweisungen vor dem DatabaseManager.
+ * Ausstehende Schreibvorgänge werden pro UUID zusammengefasst (last write wins) und
+ * gesammelt als JDBC-Batch geschrieben - entweder periodisch, sobald genug Einträge
+ * anstehen oder beim Deaktivieren des Plugins.
+ * Fehlgeschlagene Batches werden mit wachsendem Abstand erneut versucht (database.write-behind.max-retries),
+ * erst danach bzw. beim Shutdown werden die Futures mit dem Fehler abgeschlossen.
+ */
+public class PlayerGroupWriteQueue {
+
+    private final PlayLegendTask plugin;
+    private final DatabaseManager databaseManager;
+    private final int maxBatchSize;
+    private final long flushIntervalTicks;
+    private final int maxRetries;
+
+    // Längste Pause zwischen zwei Versuchen nach Fehlern
+    private static final long MAX_BACKOFF_MILLIS = 30_000L;
+    // Schreib-Sequenzen pro UUID-Stripe (Hash der UUID), erhöht bei jedem enqueue. Kollisionen lösen nur ein
+    // unnötiges Neuladen aus, dafür wächst nichts mit der Zahl der Spieler
+    private static final int SEQUENCE_STRIPES = 4096;
+    private final AtomicLongArray writeSequences = new AtomicLongArray(SEQUENCE_STRIPES);
+
+    // Ausstehende Schreibvorgänge: UUID -> letzter gewünschter Stand
+    private final Map<UUID, PendingWrite> pending = new ConcurrentHashMap<>();
+    // Aus pending entnommene Einträge - werden im selben Schritt eingetragen, in dem sie pending verlassen,
+    // und bleiben für getPendingInfo sichtbar, bis der Commit durch ist
+    private final Map<UUID, PlayerGroupInfo> inFlight = new ConcurrentHashMap<>();
+    // Verhindert, dass zwei Flushes gleichzeitig laufen (z.B. Timer + Größen-Trigger). Kein synchronized, da
+    // der Flush auf virtuellen Threads blockierend schreibt und diese sonst an ihren Carrier-Thread gebunden blieben
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Pro Lane höchstens ein geplanter Flush (Index = Lane.ordinal())
+    private final AtomicBoolean[] flushScheduled = new AtomicBoolean[DatabaseExecutor.Lane.values().length];
+    private BukkitTask flushTask;
+    // Backoff nach fehlgeschlagenen Batches: vorher laufen nur INTERACTIVE-Flushes (wartender Aufrufer, Shutdown)
+    private volatile long retryNotBefore = 0L;
+    private volatile int consecutiveFailures = 0;
+    private volatile boolean shuttingDown = false;
+    private volatile Throwable lastFailure;
+
+    // --- Metriken ---
+    private final AtomicLong enqueuedWrites = new AtomicLong();
+    private final AtomicLong coalescedWrites = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong retriedWrites = new AtomicLong();
+    private final AtomicLong droppedWrites = new AtomicLong(); // Nach allen Versuchen aufgegeben
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long maxFlushNanos;
+    private volatile long lastFlushNanos;
+
+    /**
+     * Ein ausstehender Schreibvorgang. Das Future wird beim Zusammenfassen übernommen,
+     * damit auch frühere Aufrufer benachrichtigt werden, sobald der (neuere) Stand gespeichert ist.
+     * attempts zählt die bereits fehlgeschlagenen Versuche.
+     */
+    private record PendingWrite(PlayerGroupInfo info, CompletableFuture<Void> future, int attempts) {
+    }
+
+    /**
+     * Stand der Queue für einen Spieler vor einem DB-Read, siehe {@link #beginRead(UUID)}.
+     */
+    public record ReadMark(UUID playerUUID, long sequence, PlayerGroupInfo pending) {
+    }
+
+    public PlayerGroupWriteQueue(PlayLegendTask plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.maxBatchSize = Math.max(1, plugin.getConfigManager().getWriteBehindMaxBatchSize());
+        this.flushIntervalTicks = Math.max(1L, plugin.getConfigManager().getWriteBehindFlushIntervalTicks());
+        this.maxRetries = Math.max(0, plugin.getConfigManager().getWriteBehindMaxRetries());
+        for (int i = 0; i < flushScheduled.length; i++) {
+            flushScheduled[i] = new AtomicBoolean(false);
+        }
+    }
+
+    /**
+     * Startet den periodischen Flush-Task (Zeit-Trigger).
+     */
+    public void start() {
+        // Der Bukkit-Timer stößt nur an, geschrieben wird in der BACKGROUND-Lane des DatabaseExecutors
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin,
+                () -> requestFlush(DatabaseExecutor.Lane.BACKGROUND), flushIntervalTicks, flushIntervalTicks);
+        plugin.getLogger().info("Player group write-behind queue started (interval: " + flushIntervalTicks
+                + " ticks, max batch size: " + maxBatchSize + ").");
+    }
+
+    /**
+     * Stoppt den Timer und schreibt alle ausstehenden Zuweisungen synchron weg.
+     * Wird in onDisable VOR dem Schließen der Datenbankverbindung aufgerufen.
+     */
+    public void shutdown() {
+        if (flushTask != null && !flushTask.isCancelled()) {
+            flushTask.cancel();
+        }
+        shuttingDown = true; // Letzter Versuch ohne Backoff, Fehler werden danach nicht mehr eingereiht
+        flush(DatabaseExecutor.Lane.INTERACTIVE); // Im aufrufenden Thread, da beim Deaktivieren keine Tasks mehr geplant werden können
+        plugin.getLogger().info("Write-behind queue flushed on shutdown. " + getStatsSummary());
+    }
+
+    /**
+     * Reiht eine Gruppenzuweisung zum Speichern ein. Ein bereits ausstehender Eintrag
+     * für dieselbe UUID wird überschrieben.
+     *
+     * @param playerUUID Die UUID des Spielers.
+     * @param groupName  Der Name der Gruppe.
+     * @param expiryTime Ablaufzeitpunkt (ms) oder null für permanent.
+     * @param expedite   true, wenn der Aufrufer auf das Ergebnis wartet (z.B. /setgroup) und sofort geflusht werden soll.
+     * @return Ein CompletableFuture, das abgeschlossen wird, sobald der Stand in der Datenbank ist.
+     */
+    public CompletableFuture<Void> enqueue(UUID playerUUID, String groupName, Long expiryTime, boolean expedite) {
+        PlayerGroupInfo info = new PlayerGroupInfo(playerUUID, groupName, expiryTime);
+        enqueuedWrites.incrementAndGet();
+
+        PendingWrite write = pending.compute(playerUUID, (uuid, existing) -> {
+            if (existing == null) {
+                return new PendingWrite(info, new CompletableFuture<>(), 0);
+            }
+            coalescedWrites.incrementAndGet(); // Ein Row-Write gespart
+            return new PendingWrite(info, existing.future(), 0);
+        });
+        // Nach dem Eintragen erhöhen: Wer die neue Sequenz sieht, sieht auch den Eintrag (oder dessen Commit)
+        writeSequences.incrementAndGet(stripe(playerUUID));
+
+        if (expedite) {
+            requestFlush(DatabaseExecutor.Lane.INTERACTIVE); // Aufrufer wartet (z.B. /setgroup)
+        } else if (pending.size() >= maxBatchSize) {
+            requestFlush(DatabaseExecutor.Lane.BACKGROUND); // Größen-Trigger
+        }
+        return write.future();
+    }
+
+    /**
+     * Gibt den noch nicht geschriebenen Stand für einen Spieler zurück (Read-your-writes beim Laden).
+     *
+     * @param playerUUID Die UUID des Spielers.
+     * @return Die ausstehende Zuweisung oder null, wenn nichts aussteht.
+     */
+    public PlayerGroupInfo getPendingInfo(UUID playerUUID) {
+        // Reihenfolge wichtig: flush trägt in inFlight ein, bevor der Eintrag pending verlässt
+        PendingWrite write = pending.get(playerUUID);
+        return write != null ? write.info() : inFlight.get(playerUUID);
+    }
+
+    /**
+     * Merkt sich den Stand der Queue für einen Spieler VOR einem DB-Read. Nach dem Read entscheiden
+     * {@link #isStale(ReadMark)} und {@link #resolveRead(ReadMark, PlayerGroupInfo)}, ob der gelesene Stand noch gilt.
+     *
+     * @param playerUUID Die UUID des Spielers.
+     * @return Die Markierung für resolveRead.
+     */
+    public ReadMark beginRead(UUID playerUUID) {
+        long sequence = writeSequences.get(stripe(playerUUID));
+        return new ReadMark(playerUUID, sequence, getPendingInfo(playerUUID));
+    }
+
+    /**
+     * Prüft nach einem DB-Read, ob der gelesene Stand veraltet sein kann: Während des Reads wurde eine neue
+     * Zuweisung eingereiht und ist bereits geschrieben (steht also weder in pending noch in inFlight).
+     * Dann muss neu gelesen werden.
+     *
+     * @param mark Die Markierung aus beginRead.
+     * @return true, wenn neu gelesen werden muss.
+     */
+    public boolean isStale(ReadMark mark) {
+        return getPendingInfo(mark.playerUUID()) == null
+                && writeSequences.get(stripe(mark.playerUUID())) != mark.sequence();
+    }
+
+    /**
+     * Ermittelt nach einem DB-Read den gültigen Stand (Read-your-writes): Eine jetzt noch ausstehende Zuweisung
+     * gewinnt immer. War vor dem Read eine Zuweisung ausstehend, die inzwischen geschrieben wurde, gilt diese
+     * (der Read kann vor ihrem Commit gelaufen sein). Vorher {@link #isStale(ReadMark)} prüfen.
+     *
+     * @param mark   Die Markierung aus beginRead.
+     * @param loaded Der aus der DB gelesene Stand (oder null).
+     * @return Der gültige Stand oder null, wenn nichts gespeichert ist.
+     */
+    public PlayerGroupInfo resolveRead(ReadMark mark, PlayerGroupInfo loaded) {
+        PlayerGroupInfo pendingNow = getPendingInfo(mark.playerUUID());
+        if (pendingNow != null) return pendingNow;
+        return mark.pending() != null ? mark.pending() : loaded;
+    }
+
+    private static int stripe(UUID playerUUID) {
+        return playerUUID.hashCode() & (SEQUENCE_STRIPES - 1);
+    }
+
+    /**
+     * Plant einen asynchronen Flush in der angegebenen Lane ein, falls dort nicht bereits einer geplant ist.
+     * @param lane INTERACTIVE, wenn ein Aufrufer auf das Ergebnis wartet, sonst BACKGROUND.
+     */
+    private void requestFlush(DatabaseExecutor.Lane lane) {
+        if (pending.isEmpty() || inBackoff(lane)) return;
+        AtomicBoolean scheduled = flushScheduled[lane.ordinal()];
+        if (!scheduled.compareAndSet(false, true)) return;
+        try {
+            plugin.getDatabaseExecutor().submit(lane, () -> {
+                scheduled.set(false);
+                flush(lane);
+            });
+        } catch (RejectedExecutionException e) {
+            // Executor fährt gerade herunter -> shutdown() schreibt den Rest synchron
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * Schreibt alle ausstehenden Zuweisungen in Batches von maximal maxBatchSize Zeilen.
+     * Blockierend, läuft im Async-Thread (oder beim Shutdown im Hauptthread).
+     * Nach einem Fehler schreiben bis zum Ablauf des Backoffs nur INTERACTIVE-Flushes - ein wartender Aufrufer
+     * (z.B. /setgroup) bekommt so sofort ein Ergebnis bzw. den Fehler, statt bis zu MAX_BACKOFF_MILLIS zu warten.
+     * @param lane INTERACTIVE, wenn ein Aufrufer wartet (expedite, Shutdown), sonst BACKGROUND.
+     */
+    public void flush(DatabaseExecutor.Lane lane) {
+        if (pending.isEmpty() || inBackoff(lane)) return;
+
+        flushLock.lock();
+        try {
+            List<PendingWrite> failed = new ArrayList<>();
+            List<PendingWrite> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+            for (UUID uuid : pending.keySet()) {
+                // Atomar zu compute() in enqueue: Der Eintrag wandert im selben Schritt nach inFlight,
+                // in dem er pending verlässt - getPendingInfo sieht ihn also durchgehend
+                pending.computeIfPresent(uuid, (key, write) -> {
+                    inFlight.put(key, write.info());
+                    batch.add(write);
+                    return null;
+                });
+                if (batch.size() >= maxBatchSize) {
+                    writeBatch(batch, failed, lane);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch, failed, lane);
+            }
+            // Erst nach dem Durchlauf wieder einreihen, sonst würde derselbe Flush sie sofort erneut versuchen
+            requeueFailed(failed);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean inBackoff(DatabaseExecutor.Lane lane) {
+        return lane == DatabaseExecutor.Lane.BACKGROUND && System.currentTimeMillis() < retryNotBefore;
+    }
+
+    /**
+     * Schreibt einen einzelnen Batch und schließt bei Erfolg die zugehörigen Futures ab.
+     * Bei einem Fehler landen die Einträge in failed.
+     */
+    private void writeBatch(List<PendingWrite> batch, List<PendingWrite> failed, DatabaseExecutor.Lane lane) {
+        List<PlayerGroupInfo> infos = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            infos.add(write.info());
+        }
+
+        long start = System.nanoTime();
+        try {
+            databaseManager.setPlayerGroupsBatch(infos, lane);
+            recordFlush(System.nanoTime() - start, infos.size());
+            consecutiveFailures = 0;
+            retryNotBefore = 0L;
+            for (PendingWrite write : batch) {
+                inFlight.remove(write.info().playerUUID(), write.info());
+                write.future().complete(null);
+            }
+        } catch (SQLException | RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            plugin.getLogger().log(Level.SEVERE, "Could not flush " + infos.size() + " player group assignments to the database", e);
+            for (PendingWrite write : batch) {
+                failed.add(new PendingWrite(write.info(), write.future(), write.attempts() + 1));
+            }
+            consecutiveFailures++;
+            lastFailure = e;
+            // Bleiben in inFlight sichtbar, bis sie wieder in pending stehen (requeueFailed)
+        }
+    }
+
+    /**
+     * Reiht fehlgeschlagene Schreibvorgänge wieder ein. Ein inzwischen neuerer Stand für dieselbe UUID gewinnt
+     * (putIfAbsent), das alte Future wird dann mit dem neueren abgeschlossen. Nach maxRetries Versuchen oder
+     * beim Shutdown wird das Future mit dem Fehler abgeschlossen.
+     */
+    private void requeueFailed(List<PendingWrite> failed) {
+        if (failed.isEmpty()) return;
+        int requeued = 0;
+        for (PendingWrite write : failed) {
+            UUID uuid = write.info().playerUUID();
+            if (shuttingDown || write.attempts() > maxRetries) {
+                inFlight.remove(uuid, write.info());
+                droppedWrites.incrementAndGet();
+                write.future().completeExceptionally(lastFailure);
+                continue;
+            }
+            PendingWrite existing = pending.putIfAbsent(uuid, write);
+            inFlight.remove(uuid, write.info()); // Erst jetzt, damit getPendingInfo keine Lücke sieht
+            if (existing != null) {
+                // Neuerer Stand wartet bereits -> dessen Ergebnis gilt auch für den alten Aufrufer
+                existing.future().whenComplete((result, throwable) -> {
+                    if (throwable != null) write.future().completeExceptionally(throwable);
+                    else write.future().complete(null);
+                });
+            }
+            requeued++;
+        }
+        retriedWrites.addAndGet(requeued);
+        if (requeued > 0) {
+            // Exponentieller Backoff ab dem Flush-Intervall (50 ms pro Tick), gedeckelt
+            long baseMillis = flushIntervalTicks * 50L;
+            long backoff = Math.min(MAX_BACKOFF_MILLIS, baseMillis << Math.min(consecutiveFailures - 1, 10));
+            retryNotBefore = System.currentTimeMillis() + backoff;
+            plugin.getLogger().warning("Re-queued " + requeued + " player group assignments, retrying in " + backoff + " ms.");
+        }
+    }
+
+    private void recordFlush(long nanos, int rows) {
+        flushCount.incrementAndGet();
+        flushedRows.addAndGet(rows);
+        totalFlushNanos.addAndGet(nanos);
+        lastFlushNanos = nanos;
+        if (nanos > maxFlushNanos) { // Nur unter flushLock geschrieben
+            maxFlushNanos = nanos;
+        }
+    }
+
+    // --- Metriken ---
+
+    /** @return Anzahl der aktuell ausstehenden (bereits zusammengefassten) Zuweisungen. */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /** @return Anzahl aller eingereihten Schreibvorgänge seit dem Start. */
+    public long getEnqueuedWrites() {
+        return enqueuedWrites.get();
+    }
+
+    /** @return Anzahl der Schreibvorgänge, die durch Zusammenfassen eingespart wurden. */
+    public long getCoalescedWrites() {
+        return coalescedWrites.get();
+    }
+
+    /** @return Anzahl der tatsächlich geschriebenen Zeilen. */
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    /** @return Anzahl der erfolgreichen Batches. */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /** @return Anzahl der fehlgeschlagenen Batches. */
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    /** @return Anzahl der erneut eingereihten Schreibvorgänge nach Fehlern. */
+    public long getRetriedWrites() {
+        return retriedWrites.get();
+    }
+
+    /** @return Anzahl der Schreibvorgänge, die nach allen Versuchen verworfen wurden. */
+    public long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    /** @return Durchschnittliche Dauer eines Batches in Millisekunden. */
+    public double getAverageFlushMillis() {
+        long count = flushCount.get();
+        return count == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(totalFlushNanos.get() / count) / 1000.0;
+    }
+
+    /** @return Dauer des letzten Batches in Millisekunden. */
+    public double getLastFlushMillis() {
+        return TimeUnit.NANOSECONDS.toMicros(lastFlushNanos) / 1000.0;
+    }
+
+    /** @return Längste Dauer eines Batches in Millisekunden. */
+    public double getMaxFlushMillis() {
+        return TimeUnit.NANOSECONDS.toMicros(maxFlushNanos) / 1000.0;
+    }
+
+    /**
+     * Fasst die Metriken in einer Zeile zusammen (für Log und /group stats).
+     * @return Lesbare Zusammenfassung.
+     */
+    public String getStatsSummary() {
+        return String.format("Write-behind: depth=%d, enqueued=%d, coalesced=%d, rows=%d, batches=%d (failed %d), retried=%d, dropped=%d, flush avg/last/max=%.2f/%.2f/%.2f ms",
+                getQueueDepth(), getEnqueuedWrites(), getCoalescedWrites(), getFlushedRows(), getFlushCount(), getFailedFlushes(),
+                getRetriedWrites(), getDroppedWrites(),
+                getAverageFlushMillis(), getLastFlushMillis(), getMaxFlushMillis());
+    }
+}
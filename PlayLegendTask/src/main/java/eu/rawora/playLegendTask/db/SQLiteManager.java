@@ -11,18 +11,109 @@ import java.io.File;
 import java.io.IOException;
 import java.sql.*;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
+/**
+ * SQLite-Backend im WAL-Modus.
+ * Alle Schreibzugriffe laufen über EINEN Writer-Thread, dem die Schreib-Verbindung gehört und der seine
+ * PreparedStatements cached. Lesezugriffe nutzen einen kleinen Pool von Read-Only-Verbindungen und laufen
+ * dadurch parallel - auch während ein großer Batch committet wird.
+ */
 public class SQLiteManager implements DatabaseManager {
 
+    private static final String UPSERT_PLAYER_GROUP_SQL = "INSERT OR REPLACE INTO player_groups (uuid, group_name, expiry_time) VALUES (?, ?, ?)";
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+    // Maximale Anzahl an Parametern pro IN (...)-Abfrage (SQLite-Limit liegt je nach Version bei 999)
+    private static final int MAX_IN_CLAUSE_SIZE = 500;
+    private static final String BULK_SELECT_PLAYER_GROUPS_SQL = "SELECT uuid, group_name, expiry_time FROM player_groups WHERE uuid IN ("
+            + "?,".repeat(MAX_IN_CLAUSE_SIZE - 1) + "?)";
+
     private final PlayLegendTask plugin;
-    private Connection connection;
+    // Lanes des plugin-eigenen DatabaseExecutors (für Lesezugriffe)
+    private final Executor interactiveExecutor;
+    private final Executor backgroundExecutor;
     private final String dbPath;
+    private final int readConnectionCount;
+
+    // Schreib-Seite: wird nur vom Writer-Thread benutzt
+    private ThreadPoolExecutor writer;
+    private CachedConnection writeConnection;
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final Executor interactiveWriteExecutor = runnable -> submitWrite(DatabaseExecutor.Lane.INTERACTIVE, runnable);
+    private final Executor backgroundWriteExecutor = runnable -> submitWrite(DatabaseExecutor.Lane.BACKGROUND, runnable);
+
+    // Lese-Seite: Pool von Read-Only-Verbindungen
+    private BlockingQueue<CachedConnection> readConnections;
+    private final List<CachedConnection> allReadConnections = new ArrayList<>();
+
+    /**
+     * Eine Verbindung samt Cache ihrer PreparedStatements.
+     * Wird immer nur von einem Thread gleichzeitig benutzt (Writer-Thread bzw. aus dem Pool ausgeliehen).
+     */
+    private static final class CachedConnection {
+        final Connection connection;
+        final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        CachedConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement pstmt = statements.get(sql);
+            if (pstmt == null) {
+                pstmt = connection.prepareStatement(sql);
+                statements.put(sql, pstmt);
+            } else {
+                pstmt.clearParameters();
+            }
+            return pstmt;
+        }
+
+        void close() {
+            for (PreparedStatement pstmt : statements.values()) {
+                try {
+                    pstmt.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Schreibauftrag für die Writer-Queue. INTERACTIVE wird vor BACKGROUND abgearbeitet,
+     * innerhalb einer Lane bleibt die Reihenfolge erhalten (FIFO über die Sequenznummer).
+     */
+    private record WriteTask(Runnable runnable, int priority, long sequence) implements Runnable, Comparable<WriteTask> {
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public int compareTo(WriteTask other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T apply(CachedConnection conn) throws SQLException;
+    }
 
     public SQLiteManager(PlayLegendTask plugin) {
         this.plugin = plugin;
+        this.interactiveExecutor = plugin.getDatabaseExecutor().lane(DatabaseExecutor.Lane.INTERACTIVE);
+        this.backgroundExecutor = plugin.getDatabaseExecutor().lane(DatabaseExecutor.Lane.BACKGROUND);
         this.dbPath = plugin.getDataFolder().getAbsolutePath() + File.separator + plugin.getConfigManager().getSQLiteFilename();
+        this.readConnectionCount = Math.max(1, plugin.getConfigManager().getSQLiteReadConnections());
     }
 
     @Override
@@ -42,27 +133,119 @@ public class SQLiteManager implements DatabaseManager {
         }
 
         try {
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+            // Schreib-Verbindung: WAL, damit Leser nicht von laufenden Schreib-Transaktionen blockiert werden
+            Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL"); // Im WAL-Modus sicher und deutlich schneller als FULL
+                statement.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+            }
+            writeConnection = new CachedConnection(conn);
+
+            // Lese-Verbindungen (query_only verhindert versehentliche Schreibzugriffe)
+            readConnections = new ArrayBlockingQueue<>(readConnectionCount);
+            for (int i = 0; i < readConnectionCount; i++) {
+                Connection readConn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+                try (Statement statement = readConn.createStatement()) {
+                    statement.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+                    statement.execute("PRAGMA query_only=ON");
+                }
+                CachedConnection cached = new CachedConnection(readConn);
+                allReadConnections.add(cached);
+                readConnections.add(cached);
+            }
         } catch (SQLException e) { // TODO: ggf. noch ClassNotFoundException catchen
+            disconnect(); // Bereits geöffnete Verbindungen wieder schließen
             throw new SQLException("SQLite connection failed!", e);
         }
+
+        // Genau ein Writer-Thread (Plattform-Thread, da er dauerhaft lebt und die Schreib-Verbindung besitzt)
+        writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "PLTask-SQLite-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        plugin.getLogger().info("SQLite connected in WAL mode (1 writer thread, " + readConnectionCount + " read connections).");
     }
 
     @Override
     public void disconnect() {
+        if (writer != null) {
+            writer.shutdown(); // Bereits eingereihte Schreibvorgänge laufen noch durch
+            try {
+                if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                    plugin.getLogger().warning("SQLite writer did not finish within 10 seconds, closing anyway.");
+                    writer.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writer.shutdownNow();
+            }
+        }
+        if (writeConnection != null) {
+            writeConnection.close();
+            writeConnection = null;
+        }
+        for (CachedConnection readConnection : allReadConnections) {
+            readConnection.close();
+        }
+        allReadConnections.clear();
+    }
+
+    /**
+     * Reiht einen Schreibauftrag in die Writer-Queue ein.
+     * @throws RejectedExecutionException Wenn der Writer bereits heruntergefahren wurde.
+     */
+    private void submitWrite(DatabaseExecutor.Lane lane, Runnable runnable) {
+        writer.execute(new WriteTask(runnable, lane.ordinal(), writeSequence.getAndIncrement()));
+    }
+
+    /**
+     * Führt Arbeit auf dem Writer-Thread aus und wartet auf das Ergebnis.
+     * Nur für Aufrufer, die ohnehin blockieren dürfen (Initialisierung, Batch-Flush).
+     * @param lane Priorität in der Writer-Queue - Hintergrund-Batches dürfen interaktive Einzel-Writes nicht überholen.
+     */
+    private <T> T callOnWriter(DatabaseExecutor.Lane lane, SqlWork<T> work) throws SQLException {
+        // Eigenes FutureTask statt writer.submit(), da die PriorityBlockingQueue vergleichbare Tasks braucht
+        FutureTask<T> task = new FutureTask<>(() -> work.apply(writeConnection));
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            submitWrite(lane, task);
+            return task.get();
+        } catch (RejectedExecutionException e) {
+            throw new SQLException("SQLite writer has been shut down", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the SQLite writer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
             }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error disconnecting SQLite database", e);
+            throw new SQLException("SQLite writer task failed", e.getCause());
+        }
+    }
+
+    /**
+     * Leiht eine Lese-Verbindung aus dem Pool, führt die Arbeit aus und gibt sie zurück.
+     * Blockiert (auf dem virtuellen Thread des DatabaseExecutors), bis eine Verbindung frei ist.
+     */
+    private <T> T read(SqlWork<T> work) throws SQLException {
+        CachedConnection conn;
+        try {
+            conn = readConnections.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a SQLite read connection", e);
+        }
+        try {
+            return work.apply(conn);
+        } finally {
+            readConnections.offer(conn);
         }
     }
 
     /**
-     * Erstellt die benötigten Tabellen asynchron, falls sie nicht existieren.
-     *
-     // TODO: Wechsel auf Synchron
+     * Erstellt die benötigten Tabellen, falls sie nicht existieren.
+     * Läuft auf dem Writer-Thread, der Aufrufer wartet aber auf das Ergebnis.
      */
     @Override
     public void initializeDatabase() {
@@ -70,8 +253,9 @@ public class SQLiteManager implements DatabaseManager {
         // Da dies aber meist nur beim allerersten Start etwas tut, ist der Performance-Impact gering.
         String groupsTable = "CREATE TABLE IF NOT EXISTS groups ("
                 + "name TEXT PRIMARY KEY NOT NULL,"
-                + "prefix TEXT"
-                // + ", permissions TEXT" // TODO: für Permissions ggf. so einpflegen
+                + "id INTEGER UNIQUE,"
+                + "prefix TEXT,"
+                + "parent TEXT"
                 + ");";
 
         String playerGroupsTable = "CREATE TABLE IF NOT EXISTS player_groups ("
@@ -81,6 +265,12 @@ public class SQLiteManager implements DatabaseManager {
                 + "FOREIGN KEY (group_name) REFERENCES groups(name) ON DELETE SET NULL"
                 + ");";
 
+        String groupPermissionsTable = "CREATE TABLE IF NOT EXISTS group_permissions ("
+                + "group_name TEXT NOT NULL COLLATE NOCASE,"
+                + "permission TEXT NOT NULL,"
+                + "PRIMARY KEY (group_name, permission)"
+                + ");"; // Kein FK: foreign_keys ist bei SQLite aus, deleteGroupAsync räumt selbst auf
+
         String signsTable = "CREATE TABLE IF NOT EXISTS signs ("
                 + "world TEXT NOT NULL,"
                 + "x INTEGER NOT NULL,"
@@ -90,10 +280,18 @@ public class SQLiteManager implements DatabaseManager {
                 + "PRIMARY KEY (world, x, y, z)"
                 + ");";
 
-        try (Statement statement = connection.createStatement()) {
-            statement.execute(groupsTable);
-            statement.execute(playerGroupsTable);
-            statement.execute(signsTable);
+        try {
+            callOnWriter(DatabaseExecutor.Lane.INTERACTIVE, conn -> { // Initialisierung, alles wartet darauf
+                try (Statement statement = conn.connection.createStatement()) {
+                    statement.execute(groupsTable);
+                    migrateGroupsParentColumn(conn.connection);
+                    migrateGroupsIdColumn(conn.connection);
+                    statement.execute(playerGroupsTable);
+                    statement.execute(groupPermissionsTable);
+                    statement.execute(signsTable);
+                }
+                return null;
+            });
             plugin.getLogger().info("SQLite tables checked/created successfully.");
         } catch (SQLException e) {
             // Logge den Fehler kritisch, da die DB-Struktur essentiell ist
@@ -102,79 +300,148 @@ public class SQLiteManager implements DatabaseManager {
         }
     }
 
+    /**
+     * Ergänzt die Spalte parent in bestehenden groups-Tabellen (ältere Versionen ohne Vererbung).
+     */
+    private void migrateGroupsParentColumn(Connection conn) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(null, null, "groups", "parent")) {
+            if (rs.next()) return; // Bereits vorhanden
+        }
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("ALTER TABLE groups ADD COLUMN parent TEXT");
+        }
+        plugin.getLogger().info("Migrated table 'groups': added column 'parent'.");
+    }
+
+    /**
+     * Ergänzt die Spalte id in bestehenden groups-Tabellen und vergibt fehlende IDs
+     * (fortlaufend nach Namen, hinter der höchsten vorhandenen ID).
+     * ALTER TABLE kann in SQLite keine UNIQUE-Spalte hinzufügen, daher ein eigener Unique-Index.
+     */
+    private void migrateGroupsIdColumn(Connection conn) throws SQLException {
+        boolean exists;
+        try (ResultSet rs = conn.getMetaData().getColumns(null, null, "groups", "id")) {
+            exists = rs.next();
+        }
+        try (Statement statement = conn.createStatement()) {
+            if (!exists) {
+                statement.execute("ALTER TABLE groups ADD COLUMN id INTEGER");
+                plugin.getLogger().info("Migrated table 'groups': added column 'id'.");
+            }
+            int nextId;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM groups")) {
+                nextId = rs.next() ? rs.getInt(1) + 1 : 1;
+            }
+            List<String> missing = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("SELECT name FROM groups WHERE id IS NULL ORDER BY name")) {
+                while (rs.next()) {
+                    missing.add(rs.getString(1));
+                }
+            }
+            if (!missing.isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement("UPDATE groups SET id = ? WHERE name = ?")) {
+                    for (String name : missing) {
+                        pstmt.setInt(1, nextId++);
+                        pstmt.setString(2, name);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+                plugin.getLogger().info("Assigned IDs to " + missing.size() + " existing group(s).");
+            }
+            if (!exists) {
+                statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_groups_id ON groups(id)");
+            }
+        }
+    }
+
     // --- Implementierung der Interface-Methoden (asynchron) ---
+    // Schreiben -> Writer-Thread, Lesen -> DatabaseExecutor + Read-Pool
 
     @Override
     public CompletableFuture<Void> saveGroupAsync(Group group) {
         return CompletableFuture.runAsync(() -> {
-            String sql = "INSERT OR REPLACE INTO groups (name, prefix) VALUES (?, ?)";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            try {
+                PreparedStatement pstmt = writeConnection.prepare("INSERT OR REPLACE INTO groups (name, id, prefix, parent) VALUES (?, ?, ?, ?)");
                 pstmt.setString(1, group.getName()); // Benutze den Originalnamen
-                pstmt.setString(2, group.getRawPrefix()); // Speichere raw Prefix
+                pstmt.setInt(2, group.getId());
+                pstmt.setString(3, group.getRawPrefix()); // Speichere raw Prefix
+                pstmt.setString(4, group.getParentName());
                 pstmt.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not save group: " + group.getName(), e);
                 throw new RuntimeException(e); // Wichtig für CompletableFuture Fehlerbehandlung
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveWriteExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteGroupAsync(String groupName) {
          return CompletableFuture.runAsync(() -> {
-            String sql = "DELETE FROM groups WHERE name = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            try {
+                PreparedStatement pstmt = writeConnection.prepare("DELETE FROM groups WHERE name = ?");
                 pstmt.setString(1, groupName);
                 pstmt.executeUpdate();
+                PreparedStatement permissions = writeConnection.prepare("DELETE FROM group_permissions WHERE group_name = ?");
+                permissions.setString(1, groupName);
+                permissions.executeUpdate();
+                PreparedStatement orphans = writeConnection.prepare("UPDATE groups SET parent = NULL WHERE parent = ? COLLATE NOCASE");
+                orphans.setString(1, groupName); // Kinder erben ab jetzt von niemandem mehr
+                orphans.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not delete group: " + groupName, e);
                  throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveWriteExecutor);
     }
 
     @Override
     public CompletableFuture<Group> getGroupAsync(String groupName) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT prefix FROM groups WHERE name = ? COLLATE NOCASE";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, groupName);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    return new Group(groupName, rs.getString("prefix"));
-                }
+            try {
+                return read(conn -> {
+                    PreparedStatement pstmt = conn.prepare("SELECT id, prefix, parent FROM groups WHERE name = ? COLLATE NOCASE");
+                    pstmt.setString(1, groupName);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            return new Group(rs.getInt("id"), groupName, rs.getString("prefix"), rs.getString("parent"));
+                        }
+                    }
+                    return null; // Gruppe nicht gefunden
+                });
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not get group: " + groupName, e);
                  throw new RuntimeException(e);
             }
-            return null; // Gruppe nicht gefunden
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
     }
 
 
     @Override
     public CompletableFuture<List<Group>> getAllGroupsAsync() {
         return CompletableFuture.supplyAsync(() -> {
-            List<Group> groups = new ArrayList<>();
-            String sql = "SELECT name, prefix FROM groups";
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
-                while (rs.next()) {
-                    groups.add(new Group(rs.getString("name"), rs.getString("prefix")));
-                }
+            try {
+                return read(conn -> {
+                    List<Group> groups = new ArrayList<>();
+                    try (ResultSet rs = conn.prepare("SELECT id, name, prefix, parent FROM groups").executeQuery()) {
+                        while (rs.next()) {
+                            groups.add(new Group(rs.getInt("id"), rs.getString("name"), rs.getString("prefix"), rs.getString("parent")));
+                        }
+                    }
+                    return groups;
+                });
             } catch (SQLException e) {
                  plugin.getLogger().log(Level.SEVERE, "Could not get all groups", e);
                  throw new RuntimeException(e);
             }
-            return groups;
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
     }
 
     @Override
     public CompletableFuture<Void> updateGroupPrefixAsync(String groupName, String prefix) {
          return CompletableFuture.runAsync(() -> {
-            String sql = "UPDATE groups SET prefix = ? WHERE name = ? COLLATE NOCASE";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            try {
+                PreparedStatement pstmt = writeConnection.prepare("UPDATE groups SET prefix = ? WHERE name = ? COLLATE NOCASE");
                 pstmt.setString(1, prefix); // Speichere raw Prefix
                 pstmt.setString(2, groupName);
                 pstmt.executeUpdate();
@@ -182,75 +449,215 @@ public class SQLiteManager implements DatabaseManager {
                 plugin.getLogger().log(Level.SEVERE, "Could not update prefix for group: " + groupName, e);
                  throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveWriteExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateGroupParentAsync(String groupName, String parentName) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                PreparedStatement pstmt = writeConnection.prepare("UPDATE groups SET parent = ? WHERE name = ? COLLATE NOCASE");
+                pstmt.setString(1, parentName);
+                pstmt.setString(2, groupName);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not update parent for group: " + groupName, e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveWriteExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, List<String>>> getAllGroupPermissionsAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return read(conn -> {
+                    Map<String, List<String>> permissions = new HashMap<>();
+                    try (ResultSet rs = conn.prepare("SELECT group_name, permission FROM group_permissions").executeQuery()) {
+                        while (rs.next()) {
+                            permissions.computeIfAbsent(rs.getString("group_name"), k -> new ArrayList<>()).add(rs.getString("permission"));
+                        }
+                    }
+                    return permissions;
+                });
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not get group permissions", e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> addGroupPermissionAsync(String groupName, String permission) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                PreparedStatement pstmt = writeConnection.prepare("INSERT OR IGNORE INTO group_permissions (group_name, permission) VALUES (?, ?)");
+                pstmt.setString(1, groupName);
+                pstmt.setString(2, permission);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not add permission '" + permission + "' to group: " + groupName, e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveWriteExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeGroupPermissionAsync(String groupName, String permission) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                PreparedStatement pstmt = writeConnection.prepare("DELETE FROM group_permissions WHERE group_name = ? AND permission = ?");
+                pstmt.setString(1, groupName);
+                pstmt.setString(2, permission);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not remove permission '" + permission + "' from group: " + groupName, e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveWriteExecutor);
     }
 
     @Override
     public CompletableFuture<Void> setPlayerGroupAsync(UUID playerUUID, String groupName, Long expiryTime) {
         return CompletableFuture.runAsync(() -> {
-            String sql = "INSERT OR REPLACE INTO player_groups (uuid, group_name, expiry_time) VALUES (?, ?, ?)";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerUUID.toString());
-                pstmt.setString(2, groupName); // Gruppenname (kann NULL sein, wenn Gruppe gelöscht wurde) TODO: hier ggf. noch zwischen Handling
-                if (expiryTime == null) {
-                    pstmt.setNull(3, Types.INTEGER); // Verwende INTEGER für SQLite Timestamps
-                } else {
-                    pstmt.setLong(3, expiryTime);
-                }
+            try {
+                PreparedStatement pstmt = writeConnection.prepare(UPSERT_PLAYER_GROUP_SQL);
+                bindPlayerGroup(pstmt, playerUUID, groupName, expiryTime);
                 pstmt.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not set player group for " + playerUUID, e);
                 throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveWriteExecutor);
+    }
+
+    @Override
+    public void setPlayerGroupsBatch(Collection<PlayerGroupInfo> infos, DatabaseExecutor.Lane lane) throws SQLException {
+        if (infos.isEmpty()) return;
+        // Läuft auf dem Writer-Thread, Leser arbeiten dank WAL währenddessen weiter
+        callOnWriter(lane, conn -> {
+            Connection connection = conn.connection;
+            PreparedStatement pstmt = conn.prepare(UPSERT_PLAYER_GROUP_SQL);
+            connection.setAutoCommit(false); // Ein Commit für den ganzen Batch
+            try {
+                for (PlayerGroupInfo info : infos) {
+                    bindPlayerGroup(pstmt, info.playerUUID(), info.groupName(), info.expiryTime());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                pstmt.clearBatch(); // Gecachtes Statement sauber hinterlassen
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Setzt die Parameter für UPSERT_PLAYER_GROUP_SQL.
+     */
+    private void bindPlayerGroup(PreparedStatement pstmt, UUID playerUUID, String groupName, Long expiryTime) throws SQLException {
+        pstmt.setString(1, playerUUID.toString());
+        pstmt.setString(2, groupName); // Gruppenname (kann NULL sein, wenn Gruppe gelöscht wurde) TODO: hier ggf. noch zwischen Handling
+        if (expiryTime == null) {
+            pstmt.setNull(3, Types.INTEGER); // Verwende INTEGER für SQLite Timestamps
+        } else {
+            pstmt.setLong(3, expiryTime);
+        }
     }
 
 
     @Override
     public CompletableFuture<PlayerGroupInfo> getPlayerGroupInfoAsync(UUID playerUUID) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT group_name, expiry_time FROM player_groups WHERE uuid = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-                pstmt.setString(1, playerUUID.toString());
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    String groupName = rs.getString("group_name");
-                    // Wenn group_name NULL ist (weil Gruppe gelöscht), gib null zurück oder Default? Hier: null , aber TODO: hier ggf. noch weiter handlen
-                    if (groupName == null) {
-                         plugin.getLogger().warning("Player " + playerUUID + " references a NULL group (likely deleted).");
-                         return null; // TODO: ggf. einfach Default zuweisen, oder ein anderes "eigenes" Objekt returnen
+            try {
+                return read(conn -> {
+                    PreparedStatement pstmt = conn.prepare("SELECT group_name, expiry_time FROM player_groups WHERE uuid = ?");
+                    pstmt.setString(1, playerUUID.toString());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            String groupName = rs.getString("group_name");
+                            // Wenn group_name NULL ist (weil Gruppe gelöscht), gib null zurück oder Default? Hier: null , aber TODO: hier ggf. noch weiter handlen
+                            if (groupName == null) {
+                                 plugin.getLogger().warning("Player " + playerUUID + " references a NULL group (likely deleted).");
+                                 return null; // TODO: ggf. einfach Default zuweisen, oder ein anderes "eigenes" Objekt returnen
+                            }
+                            long expiryTimestamp = rs.getLong("expiry_time");
+                            Long expiry = rs.wasNull() ? null : expiryTimestamp;
+                            return new PlayerGroupInfo(playerUUID, groupName, expiry);
+                        }
                     }
-                    long expiryTimestamp = rs.getLong("expiry_time");
-                    Long expiry = rs.wasNull() ? null : expiryTimestamp;
-                    return new PlayerGroupInfo(playerUUID, groupName, expiry);
-                }
+                    return null; // Spieler nicht in der DB gefunden
+                });
             } catch (SQLException e) {
                  plugin.getLogger().log(Level.SEVERE, "Could not get player group info for " + playerUUID, e);
                  throw new RuntimeException(e);
             }
-            return null; // Spieler nicht in der DB gefunden
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, interactiveExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, PlayerGroupInfo>> getPlayerGroupInfosAsync(Collection<UUID> playerUUIDs) {
+        List<UUID> uuids = List.copyOf(playerUUIDs); // Snapshot, da die Abfrage asynchron läuft
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return read(conn -> {
+                    Map<UUID, PlayerGroupInfo> result = new HashMap<>();
+                    for (int start = 0; start < uuids.size(); start += MAX_IN_CLAUSE_SIZE) {
+                        List<UUID> chunk = uuids.subList(start, Math.min(start + MAX_IN_CLAUSE_SIZE, uuids.size()));
+                        // Immer genau ein Statement-Text: Der letzte Chunk wird mit seiner ersten UUID aufgefüllt,
+                        // sonst bliebe pro Restgröße ein weiteres Statement im Cache jeder Lese-Verbindung offen
+                        PreparedStatement pstmt = conn.prepare(BULK_SELECT_PLAYER_GROUPS_SQL);
+                        String padding = chunk.get(0).toString();
+                        for (int i = 0; i < MAX_IN_CLAUSE_SIZE; i++) {
+                            pstmt.setString(i + 1, i < chunk.size() ? chunk.get(i).toString() : padding);
+                        }
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                UUID uuid = UUID.fromString(rs.getString("uuid"));
+                                String groupName = rs.getString("group_name");
+                                if (groupName == null) {
+                                    plugin.getLogger().warning("Player " + uuid + " references a NULL group (likely deleted).");
+                                    continue;
+                                }
+                                long expiryTimestamp = rs.getLong("expiry_time");
+                                Long expiry = rs.wasNull() ? null : expiryTimestamp;
+                                result.put(uuid, new PlayerGroupInfo(uuid, groupName, expiry));
+                            }
+                        }
+                    }
+                    return result;
+                });
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not bulk load player group info for " + uuids.size() + " players", e);
+                throw new RuntimeException(e);
+            }
+        }, interactiveExecutor);
     }
 
     @Override
      public CompletableFuture<Void> removePlayerFromGroupAsync(UUID playerUUID) {
         return CompletableFuture.runAsync(() -> {
-            String sql = "DELETE FROM player_groups WHERE uuid = ?";
-            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            try {
+                PreparedStatement pstmt = writeConnection.prepare("DELETE FROM player_groups WHERE uuid = ?");
                 pstmt.setString(1, playerUUID.toString());
                 pstmt.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not remove player group data for " + playerUUID, e);
                 throw new RuntimeException(e);
             }
-        }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+        }, backgroundWriteExecutor);
     }
 
     @Override
     public CompletableFuture<Void> saveSignLocationAsync(Location location, UUID targetPlayerUUID) {
          return CompletableFuture.runAsync(() -> {
-             String sql = "INSERT OR REPLACE INTO signs (world, x, y, z, target_uuid) VALUES (?, ?, ?, ?, ?)";
-             try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+             try {
+                 PreparedStatement pstmt = writeConnection.prepare("INSERT OR REPLACE INTO signs (world, x, y, z, target_uuid) VALUES (?, ?, ?, ?, ?)");
                  pstmt.setString(1, location.getWorld().getName());
                  pstmt.setInt(2, location.getBlockX());
                  pstmt.setInt(3, location.getBlockY());
@@ -261,14 +668,14 @@ public class SQLiteManager implements DatabaseManager {
                  plugin.getLogger().log(Level.SEVERE, "Could not save sign location: " + location, e);
                  throw new RuntimeException(e);
              }
-         }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+         }, backgroundWriteExecutor);
     }
 
     @Override
     public CompletableFuture<Void> deleteSignLocationAsync(Location location) {
          return CompletableFuture.runAsync(() -> {
-             String sql = "DELETE FROM signs WHERE world = ? AND x = ? AND y = ? AND z = ?";
-             try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+             try {
+                 PreparedStatement pstmt = writeConnection.prepare("DELETE FROM signs WHERE world = ? AND x = ? AND y = ? AND z = ?");
                  pstmt.setString(1, location.getWorld().getName());
                  pstmt.setInt(2, location.getBlockX());
                  pstmt.setInt(3, location.getBlockY());
@@ -278,30 +685,33 @@ public class SQLiteManager implements DatabaseManager {
                  plugin.getLogger().log(Level.SEVERE, "Could not delete sign location: " + location, e);
                  throw new RuntimeException(e);
              }
-         }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+         }, backgroundWriteExecutor);
     }
 
     @Override
     public CompletableFuture<Map<Location, UUID>> getAllSignLocationsAsync() {
          return CompletableFuture.supplyAsync(() -> {
-             Map<Location, UUID> signLocations = new HashMap<>();
-             String sql = "SELECT world, x, y, z, target_uuid FROM signs";
-             try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
-                 while (rs.next()) {
-                     World world = Bukkit.getWorld(rs.getString("world"));
-                     if (world != null) {
-                         Location loc = new Location(world, rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
-                         UUID targetUUID = UUID.fromString(rs.getString("target_uuid"));
-                         signLocations.put(loc, targetUUID);
-                     } else {
-                         plugin.getLogger().warning("Could not load sign location: World '" + rs.getString("world") + "' not found.");
+             try {
+                 return read(conn -> {
+                     Map<Location, UUID> signLocations = new HashMap<>();
+                     try (ResultSet rs = conn.prepare("SELECT world, x, y, z, target_uuid FROM signs").executeQuery()) {
+                         while (rs.next()) {
+                             World world = Bukkit.getWorld(rs.getString("world"));
+                             if (world != null) {
+                                 Location loc = new Location(world, rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
+                                 UUID targetUUID = UUID.fromString(rs.getString("target_uuid"));
+                                 signLocations.put(loc, targetUUID);
+                             } else {
+                                 plugin.getLogger().warning("Could not load sign location: World '" + rs.getString("world") + "' not found.");
+                             }
+                         }
                      }
-                 }
+                     return signLocations;
+                 });
              } catch (SQLException | IllegalArgumentException e) {
                  plugin.getLogger().log(Level.SEVERE, "Could not load sign locations", e);
                  throw new RuntimeException(e);
              }
-             return signLocations;
-         }, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+         }, backgroundExecutor);
     }
-}
\ No newline at end of file
+}
@@ -21,6 +21,9 @@ public class PlayerChatListener implements Listener {
      * könnte man natürlich aber weiter ausbauen wie unten im TO DO erwähnt
      */
 
+    // Konstantes Format, wird nicht pro Nachricht neu zusammengesetzt
+    private static final String CHAT_FORMAT = "%1$s" + ChatColor.RESET + ": %2$s";
+
     private final PlayLegendTask plugin;
     private final PlayerDataManager playerDataManager;
 
@@ -38,7 +41,7 @@ public class PlayerChatListener implements Listener {
     public void onPlayerChat(AsyncPlayerChatEvent event) {
         Player player = event.getPlayer();
 
-        // Hole die Gruppe des Spielers (inkl. Fallback auf Default)
+        // Hole die Gruppe des Spielers (direkte Referenz aus der Session, inkl. Fallback auf Default)
         Group group = playerDataManager.getPlayerGroup(player.getUniqueId());
 
         // Sollte nie null sein, wenn Default-Gruppe existiert..
@@ -48,8 +51,7 @@ public class PlayerChatListener implements Listener {
             return;
         }
 
-        String format = "%1$s" + ChatColor.RESET + ": %2$s";
-        event.setFormat(format);
+        event.setFormat(CHAT_FORMAT);
 
         // TODO: wenn komplexere Formatierung gewünscht ist,-> ggf. canceln und mit Components arbeiten und Prefix erst hier setzen
     }
@@ -6,6 +6,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
@@ -23,17 +24,30 @@ public class PlayerJoinQuitListener implements Listener {
         this.playerDataManager = plugin.getPlayerDataManager();
     }
 
+    /**
+     * Wird asynchron vor dem Login aufgerufen. Hier darf blockiert werden,
+     * daher werden die Gruppendaten bereits jetzt geladen und zwischengespeichert.
+     * MONITOR, damit nur für tatsächlich erlaubte Logins geladen wird.
+     *
+     * @param event Das AsyncPlayerPreLoginEvent.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        playerDataManager.prefetchPlayerData(event.getUniqueId(), event.getName());
+    }
+
     /**
      * Wird aufgerufen, wenn ein Spieler den Server betritt.
-     * Lädt die Gruppendaten des Spielers über den PlayerDataManager.
+     * Wendet die vorgeladenen Gruppendaten an oder lädt sie über den PlayerDataManager.
      *
      * @param event Das PlayerJoinEvent.
      */
     @EventHandler(priority = EventPriority.NORMAL)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        playerDataManager.loadPlayerData(player);
-        // Das Setzen von Prefix, Scoreboard etc. geschieht innerhalb von loadPlayerData -> updatePlayerVisuals
+        playerDataManager.handleJoin(player);
+        // Das Setzen von Prefix, Scoreboard etc. geschieht innerhalb von handleJoin -> updatePlayerVisuals
     }
 
     /**
@@ -0,0 +1,31 @@
+package eu.rawora.playLegendTask.listeners;
+
+import eu.rawora.playLegendTask.PlayLegendTask;
+import eu.rawora.playLegendTask.managers.PermissionManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+
+/**
+ * Dieser Listener wendet beim Weltwechsel die welt-spezifischen Gruppen-Permissions an.
+ * Die Maps pro (Gruppe, Welt) sind bereits vom GroupManager vorberechnet, hier wird nur das Attachment umgestellt.
+ */
+public class PlayerWorldChangeListener implements Listener {
+
+    private final PermissionManager permissionManager;
+
+    public PlayerWorldChangeListener(PlayLegendTask plugin) {
+        this.permissionManager = plugin.getPermissionManager();
+    }
+
+    /**
+     * Wird aufgerufen, nachdem ein Spieler die Welt gewechselt hat.
+     *
+     * @param event Das PlayerChangedWorldEvent.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        permissionManager.handleWorldChange(event.getPlayer());
+    }
+}
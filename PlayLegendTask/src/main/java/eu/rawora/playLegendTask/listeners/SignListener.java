@@ -3,6 +3,7 @@ package eu.rawora.playLegendTask.listeners;
 import eu.rawora.playLegendTask.PlayLegendTask;
 import eu.rawora.playLegendTask.managers.ConfigManager;
 import eu.rawora.playLegendTask.managers.SignManager;
+import io.papermc.paper.event.packet.PlayerChunkLoadEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
@@ -15,6 +16,9 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 
 import java.util.UUID;
 
@@ -114,8 +118,9 @@ public class SignListener implements Listener {
         Block block = event.getBlock();
         Player player = event.getPlayer();
 
-        // Prüfe, ob der Block ein Schild ist und ob seine Location im SignManager registriert ist
-        if (block.getState() instanceof Sign && signManager.isGroupInfoSign(block.getLocation())) {
+        // Zuerst nur die Koordinaten nachschlagen (primitiver Lookup, keine Objekte) - den Block-State
+        // (Snapshot der Tile-Entity) nur holen, wenn dort tatsächlich ein Info-Schild registriert ist
+        if (signManager.isGroupInfoSign(block) && block.getState() instanceof Sign) {
 
             // TODO: Optional: Permission zum Zerstören von Info-Schildern prüfen ?
             // if (!player.hasPermission("playlegendtask.admin.breaksign")) {
@@ -124,9 +129,41 @@ public class SignListener implements Listener {
             //     return;
             // }
 
-            signManager.removeSign(block.getLocation());
+            signManager.removeSign(block);
 
             player.sendMessage(configManager.getPrefixedMessage("sign.broken"));
         }
     }
+
+    /**
+     * Chunks mit Info-Schildern werden beim Laden aktiv und ihre Schilder einmal aktualisiert.
+     * @param event Das ChunkLoadEvent.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        signManager.handleChunkLoad(event.getChunk());
+    }
+
+    /**
+     * Schilder in entladenen Chunks werden vom periodischen Task nicht mehr angefasst.
+     * @param event Das ChunkUnloadEvent.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        signManager.handleChunkUnload(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        signManager.handleWorldUnload(event.getWorld().getName());
+    }
+
+    /**
+     * Ein Spieler hat einen Chunk erhalten - im Paket-Modus werden ihm die Info-Schilder darin gesendet.
+     * @param event Das PlayerChunkLoadEvent (Paper).
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChunkLoad(PlayerChunkLoadEvent event) {
+        signManager.handleViewerChunkLoad(event.getPlayer(), event.getChunk());
+    }
 }
\ No newline at end of file
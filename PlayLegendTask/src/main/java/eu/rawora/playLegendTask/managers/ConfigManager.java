@@ -1,6 +1,7 @@
 package eu.rawora.playLegendTask.managers;
 
 import eu.rawora.playLegendTask.PlayLegendTask;
+import eu.rawora.playLegendTask.util.PlaceholderTemplate;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -21,6 +22,11 @@ public class ConfigManager {
     private FileConfiguration messages;
     private File messagesFile;
 
+    // Vorkompilierte Platzhalter-Templates (werden bei jedem loadConfigs neu erstellt)
+    private PlaceholderTemplate tablistTemplate;
+    private List<PlaceholderTemplate> scoreboardLineTemplates;
+    private final PlaceholderTemplate[] signLineTemplates = new PlaceholderTemplate[4];
+
     public ConfigManager(PlayLegendTask plugin) {
         this.plugin = plugin;
     }
@@ -71,9 +77,24 @@ public class ConfigManager {
             plugin.getLogger().warning("Could not find default messages.yml in JAR!");
         }
 
+        compileTemplates();
         plugin.getLogger().info("Configuration files loaded.");
     }
 
+    /**
+     * Zerlegt alle Formate mit Platzhaltern (Tablist, Scoreboard, Schilder) einmalig in Tokens,
+     * damit beim Rendern nicht jedes Mal String.replace-Ketten laufen.
+     */
+    private void compileTemplates() {
+        tablistTemplate = PlaceholderTemplate.compile(getTablistFormat());
+        scoreboardLineTemplates = config.getStringList("scoreboard.lines").stream()
+                .map(PlaceholderTemplate::compile)
+                .toList();
+        for (int line = 1; line <= 4; line++) {
+            signLineTemplates[line - 1] = PlaceholderTemplate.compile(getSignLine(line));
+        }
+    }
+
     /**
      * Speichert die aktuelle In-Memory-Konfiguration in die config.yml Datei.
      * Nützlich, falls Einstellungen zur Laufzeit geändert werden können sollen.
@@ -167,6 +188,10 @@ public class ConfigManager {
         return config.getString("database.sqlite.filename", "playerdata.db");
     }
 
+    public int getSQLiteReadConnections() {
+        return config.getInt("database.sqlite.read-connections", 4);
+    }
+
     public String getDBHost() {
         return config.getString("database.mysql.host", "localhost");
     }
@@ -188,11 +213,41 @@ public class ConfigManager {
     }
     // TODO: Man könnte hier auch getBoolean für useSSL etc. hinzufügen
 
+    public int getDatabaseMaxConcurrency() {
+        return config.getInt("database.executor.max-concurrency", 8);
+    }
+
+    public long getWriteBehindFlushIntervalTicks() {
+        return config.getLong("database.write-behind.flush-interval-ticks", 20L);
+    }
+
+    public int getWriteBehindMaxBatchSize() {
+        return config.getInt("database.write-behind.max-batch-size", 100);
+    }
+
+    public int getWriteBehindMaxRetries() {
+        return config.getInt("database.write-behind.max-retries", 5);
+    }
+
+    // Join-Prefetch
+    public long getJoinPrefetchTimeoutMillis() {
+        return config.getLong("join-prefetch.timeout-millis", 1500L);
+    }
+
+    public long getJoinPrefetchStagingTtlMillis() {
+        return config.getLong("join-prefetch.staging-ttl-seconds", 30L) * 1000L;
+    }
+
     // Gruppen
     public String getDefaultGroupName() {
         return config.getString("default-group", "Default");
     }
 
+    // Permissions
+    public double getRecalculationBudgetMillis() {
+        return config.getDouble("permissions.recalculation-budget-ms", 2.0);
+    }
+
     // Schilder (Signs)
     public boolean isSignsEnabled() {
         return config.getBoolean("signs.enabled", true);
@@ -206,12 +261,29 @@ public class ConfigManager {
         return config.getLong("signs.update-interval", 100L);
     }
 
+    public double getSignRenderBudgetMillis() {
+        return config.getDouble("signs.render-budget-ms", 1.0);
+    }
+
+    /**
+     * @return true, wenn Schilder per sendSignChange nur an Spieler in Sichtweite gesendet werden (signs.render-mode: packet).
+     */
+    public boolean isSignPacketRenderMode() {
+        return "packet".equalsIgnoreCase(config.getString("signs.render-mode", "block"));
+    }
+
     // Holt die Formatierungszeile für Schilder (Index 1-4)
     public String getSignLine(int line) {
         if (line < 1 || line > 4) return ""; // Gültige Zeilen sind 1-4
         return config.getString("signs.line" + line, ""); // Holt z.B. "signs.line1"
     }
 
+    // Vorkompiliertes Template für eine Schild-Zeile (Index 1-4)
+    public PlaceholderTemplate getSignLineTemplate(int line) {
+        if (line < 1 || line > 4) return PlaceholderTemplate.compile(""); // Gültige Zeilen sind 1-4
+        return signLineTemplates[line - 1];
+    }
+
     // Tablist
     public boolean isTablistEnabled() {
         return config.getBoolean("tablist.enabled", true);
@@ -221,6 +293,10 @@ public class ConfigManager {
         return config.getString("tablist.format", "%group_prefix% &r%player%");
     }
 
+    public PlaceholderTemplate getTablistTemplate() {
+        return tablistTemplate;
+    }
+
     // Scoreboard
     public boolean isScoreboardEnabled() {
         return config.getBoolean("scoreboard.enabled", true);
@@ -238,6 +314,11 @@ public class ConfigManager {
                 .collect(Collectors.toList());
     }
 
+    // Vorkompilierte Templates der Scoreboard-Zeilen (Farbcodes bereits übersetzt)
+    public List<PlaceholderTemplate> getScoreboardLineTemplates() {
+        return scoreboardLineTemplates;
+    }
+
     // Direkter Zugriff auf die FileConfiguration Objekte, falls benötigt
     public FileConfiguration getConfig() {
         return config;
@@ -2,35 +2,79 @@ package eu.rawora.playLegendTask.managers;
 
 import eu.rawora.playLegendTask.PlayLegendTask;
 import eu.rawora.playLegendTask.model.Group;
+import eu.rawora.playLegendTask.model.GroupSnapshot;
+import eu.rawora.playLegendTask.util.PermissionIdRegistry;
+import eu.rawora.playLegendTask.util.PermissionTrie;
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.permissions.Permission;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 public class GroupManager {
 
     private final PlayLegendTask plugin;
-    // Cache für Gruppen: Key = lowercase group name, Value = Group object
-    // ConcurrentHashMap, da DB-Operationen asynchron laufen und Cache ggf. von Callbacks geändert wird.
-    private final Map<String, Group> groupCache = new ConcurrentHashMap<>();
+    // Arbeitsstand der Gruppen: Key = lowercase group name, Value = aktuelle (unveränderliche) Version der Gruppe.
+    // Wird nur im Hauptthread gelesen und verändert; nach außen wird nur der veröffentlichte Snapshot gegeben.
+    private final Map<String, Group> groupCache = new HashMap<>();
+    // Veröffentlichter Stand für alle Threads, wird nach jeder Änderung als Ganzes ersetzt (publish)
+    private volatile GroupSnapshot snapshot = GroupSnapshot.EMPTY;
+    private int maxGroupId = Group.NO_ID; // Höchste vergebene ID, neue Gruppen bekommen die nächste
     private final String defaultGroupName; // Name der Default-Gruppe aus Config
+    private final String defaultGroupKey; // Kleingeschrieben, einmal berechnet
+    // Vererbung: lowercase Eltern-Name -> lowercase Namen der direkten Kinder (nur im Hauptthread verändert)
+    private final Map<String, Set<String>> childrenIndex = new HashMap<>();
+    // Alle bekannten Nodes, gegen die Wildcards aufgelöst werden (nur im Hauptthread verändert)
+    private Set<String> knownPermissions = new HashSet<>();
+    // Permission-Node -> feste ID, für die O(1)-Prüfungen über die Bitsets der Gruppen
+    private final PermissionIdRegistry permissionIds = new PermissionIdRegistry();
+
+    /**
+     * Ergebnis einer Neuberechnung: Gruppen mit geänderten effektiven Permissions bzw. geändertem Prefix.
+     */
+    private record EffectiveChanges(Set<Group> permissions, Set<Group> prefixes) {
+    }
 
     public GroupManager(PlayLegendTask plugin) {
         this.plugin = plugin;
         this.defaultGroupName = plugin.getConfigManager().getDefaultGroupName();
+        this.defaultGroupKey = defaultGroupName.toLowerCase();
     }
 
     /**
-     * Lädt alle Gruppen asynchron aus der Datenbank in den Cache.
-     * Wird normalerweise beim Plugin-Start aufgerufen.
+     * Lädt alle Gruppen und ihre Permissions asynchron aus der Datenbank in den Cache
+     * und kompiliert die Permissions. Wird normalerweise beim Plugin-Start aufgerufen.
      */
     public void loadGroupsFromDatabase() {
          plugin.getLogger().info("Loading groups from database...");
-         plugin.getDatabaseManager().getAllGroupsAsync().whenCompleteAsync((groups, throwable) -> {
+         CompletableFuture<Map<String, List<String>>> permissionsFuture = plugin.getDatabaseManager().getAllGroupPermissionsAsync();
+         plugin.getDatabaseManager().getAllGroupsAsync().thenCombine(permissionsFuture, (groups, permissions) -> {
+             // Permissions den Gruppen zuordnen (noch im DB-Thread, die Gruppen sind hier noch nicht geteilt)
+             if (groups != null) {
+                 Map<String, List<String>> byLowerName = new HashMap<>();
+                 permissions.forEach((groupName, entries) -> byLowerName.computeIfAbsent(groupName.toLowerCase(), k -> new ArrayList<>()).addAll(entries));
+                 List<Group> withPermissions = new ArrayList<>(groups.size());
+                 for (Group group : groups) {
+                     List<String> entries = byLowerName.get(group.getKey());
+                     withPermissions.add(entries != null ? group.withPermissions(entries) : group);
+                 }
+                 return withPermissions;
+             }
+             return groups;
+         }).whenCompleteAsync((groups, throwable) -> {
              // Dieser Code wird ausgeführt, wenn die DB-Abfrage fertig ist
              if (throwable != null) {
                  // Fehler beim Laden
@@ -41,14 +85,29 @@ public class GroupManager {
 
              if (groups != null) {
                  groupCache.clear(); // Alten Cache leeren
+                 maxGroupId = Group.NO_ID;
+                 for (Group group : groups) {
+                     maxGroupId = Math.max(maxGroupId, group.getId());
+                 }
                  int count = 0;
                  for (Group group : groups) {
-                     // Speichere im Cache mit lowercase Namen für einfache Abfrage
-                     groupCache.put(group.getName().toLowerCase(), group);
+                     if (group.getId() == Group.NO_ID) {
+                         // Sollte nach der Migration nicht vorkommen (z.B. manuell eingefügte Zeile) -> ID nachtragen
+                         group = assignId(group);
+                     }
+                     groupCache.put(group.getKey(), group); // Speichere im Cache mit lowercase Namen für einfache Abfrage
                      count++;
                  }
                  plugin.getLogger().info("Successfully loaded " + count + " groups into cache.");
                  ensureDefaultGroupExists();
+                 rebuildHierarchy();
+                 recompileAllPermissions();
+                 publish();
+                 if (plugin.getSignManager() != null) {
+                     plugin.getSignManager().markAllDirty(); // Schilder offline Spieler zeigen die Default-Gruppe
+                 }
+                 // Spieler, die schon vor dem Laden der Gruppen geladen wurden, bekommen jetzt ihre Permissions
+                 plugin.getPlayerDataManager().refreshPermissionsForGroups(groupCache.values());
              } else {
                   // Sollte nicht passieren, außer DB ist leer/Fehler
                   plugin.getLogger().warning("No groups returned from database. Ensuring default group exists.");
@@ -65,7 +124,55 @@ public class GroupManager {
      */
     public Group getGroup(String name) {
         if (name == null) return null;
-        return groupCache.get(name.toLowerCase());
+        return snapshot.get(name.toLowerCase());
+    }
+
+    /**
+     * Holt eine Gruppe anhand ihrer stabilen ID (Array-Zugriff, ohne String-Operationen). Threadsicher.
+     * @param id Die ID der Gruppe.
+     * @return Das Group-Objekt oder null, wenn keine Gruppe diese ID hat.
+     */
+    public Group getGroup(int id) {
+        return snapshot.get(id);
+    }
+
+    /**
+     * Gibt den aktuell veröffentlichten Stand aller Gruppen zurück. Threadsicher und ohne Kopie; wer mehrere
+     * Gruppen zusammen auswertet, sollte sich den Snapshot einmal holen, um einen stimmigen Stand zu sehen.
+     * @return Der Snapshot (nie null).
+     */
+    public GroupSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sucht im Arbeitsstand (nicht im Snapshot). Nur im Hauptthread während einer Änderung benutzen.
+     */
+    private Group find(String name) {
+        return name != null ? groupCache.get(name.toLowerCase()) : null;
+    }
+
+    /**
+     * Veröffentlicht den Arbeitsstand als neuen Snapshot und lässt die Sessions der Online-Spieler auf die neuen
+     * Gruppen-Objekte zeigen. Muss nach jeder Änderung im Bukkit-Hauptthread aufgerufen werden.
+     */
+    private void publish() {
+        Group[] byId = new Group[maxGroupId + 1];
+        for (Group group : groupCache.values()) {
+            byId[group.getId()] = group;
+        }
+        snapshot = new GroupSnapshot(snapshot.version() + 1, Map.copyOf(groupCache), byId, List.copyOf(groupCache.values()));
+        plugin.getPlayerDataManager().resolveCachedGroups();
+    }
+
+    /**
+     * Erzeugt eine Kopie der Gruppe mit der nächsten freien ID und speichert sie (für Zeilen ohne ID).
+     */
+    private Group assignId(Group group) {
+        Group withId = group.withId(++maxGroupId);
+        plugin.getLogger().warning("Group '" + group.getName() + "' had no ID. Assigned ID " + withId.getId() + ".");
+        plugin.getDatabaseManager().saveGroupAsync(withId);
+        return withId;
     }
 
     /**
@@ -74,7 +181,7 @@ public class GroupManager {
      * @return Das Default-Group-Objekt oder null im Fehlerfall (sollte nicht passieren).
      */
     public Group getDefaultGroup() {
-        Group defaultGroup = getGroup(defaultGroupName);
+        Group defaultGroup = snapshot.get(defaultGroupKey);
         if (defaultGroup == null) {
              // Dies kann passieren, wenn direkt nach dem Start darauf zugegriffen wird,
              // bevor loadGroupsFromDatabase den Cache gefüllt hat oder wenn Default in DB fehlt.
@@ -89,10 +196,11 @@ public class GroupManager {
 
     /**
      * Gibt eine (nicht modifizierbare) Sammlung aller gecachten Gruppen zurück.
+     * Die Liste gehört zum aktuellen Snapshot und wird nicht bei jedem Aufruf kopiert.
      * @return Collection aller Gruppen.
      */
     public Collection<Group> getAllGroups() {
-        return List.copyOf(groupCache.values());
+        return snapshot.groups();
     }
 
     /**
@@ -102,7 +210,7 @@ public class GroupManager {
      */
     public boolean groupExists(String name) {
         if (name == null) return false;
-        return groupCache.containsKey(name.toLowerCase());
+        return snapshot.byKey().containsKey(name.toLowerCase());
     }
 
     /**
@@ -113,16 +221,19 @@ public class GroupManager {
      */
     public CompletableFuture<Boolean> createGroup(String name, String prefix) {
         String lowerCaseName = name.toLowerCase();
-        if (groupExists(lowerCaseName)) {
+        if (groupCache.containsKey(lowerCaseName)) {
             return CompletableFuture.completedFuture(false); // Direkt false zurückgeben
         }
 
-        Group newGroup = new Group(name, prefix);
+        // ID wird sofort (im Hauptthread) reserviert, damit parallele Erstellungen nicht dieselbe bekommen
+        Group newGroup = new Group(++maxGroupId, name, prefix, null);
 
         return plugin.getDatabaseManager().saveGroupAsync(newGroup)
                 .thenApplyAsync(v -> {
                     // Bei Erfolg: Füge zum Cache hinzu (im Hauptthread)
-                    groupCache.put(lowerCaseName, newGroup);
+                    groupCache.put(newGroup.getKey(), newGroup);
+                    updateEffective(List.of(newGroup));
+                    publish();
                     plugin.getLogger().info("Group '" + name + "' created and cached.");
                     return true; // Erfolg
                 }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable))
@@ -142,7 +253,7 @@ public class GroupManager {
      */
     public CompletableFuture<Boolean> deleteGroup(String name) {
         String lowerCaseName = name.toLowerCase();
-        if (!groupExists(lowerCaseName)) {
+        if (!groupCache.containsKey(lowerCaseName)) {
             return CompletableFuture.completedFuture(false); // Existiert nicht
         }
         if (lowerCaseName.equals(defaultGroupName.toLowerCase())) {
@@ -151,11 +262,26 @@ public class GroupManager {
 
         // Lösche asynchron aus der DB
         // Nutze Originalnamen, falls DB case-sensitive ist
-        Group groupToDelete = getGroup(lowerCaseName); // Hole Originalnamen aus Cache
+        Group groupToDelete = find(lowerCaseName); // Hole Originalnamen aus Cache
         return plugin.getDatabaseManager().deleteGroupAsync(groupToDelete.getName())
                 .thenApplyAsync(v -> {
                     // Bei Erfolg: Entferne aus Cache (im Hauptthread)
                     groupCache.remove(lowerCaseName);
+                    // Kinder erben ab jetzt von niemandem mehr (in der DB bereits erledigt)
+                    List<Group> orphans = new ArrayList<>();
+                    for (String childName : childrenIndex.getOrDefault(lowerCaseName, Set.of())) {
+                        Group child = groupCache.get(childName);
+                        if (child != null) {
+                            Group orphan = child.withParentName(null);
+                            groupCache.put(childName, orphan);
+                            orphans.add(orphan);
+                        }
+                    }
+                    rebuildHierarchy();
+                    EffectiveChanges changes = updateEffective(orphans);
+                    publish();
+                    applyChanges(changes);
+                    plugin.getPermissionManager().removeGroupNodes(lowerCaseName);
                     plugin.getLogger().info("Group '" + name + "' deleted from database and cache.");
                     // Spieler in dieser Gruppe werden durch DB Foreign Key oder PlayerDataManager behandelt
                     return true; // Erfolg
@@ -176,17 +302,23 @@ public class GroupManager {
      */
      public CompletableFuture<Boolean> setGroupPrefix(String name, String prefix) {
         String lowerCaseName = name.toLowerCase();
-        Group group = getGroup(lowerCaseName);
+        Group group = find(lowerCaseName);
         if (group == null) {
             return CompletableFuture.completedFuture(false); // Gruppe existiert nicht
         }
 
         return plugin.getDatabaseManager().updateGroupPrefixAsync(group.getName(), prefix)
                 .thenApplyAsync(v -> {
-                    group.setPrefix(prefix);
+                    Group current = groupCache.get(group.getKey()); // Kann inzwischen eine neuere Version sein
+                    if (current == null) return false; // Zwischenzeitlich gelöscht
+                    groupCache.put(current.getKey(), current.withPrefix(prefix));
                     plugin.getLogger().info("Prefix for group '" + group.getName() + "' updated in database and cache.");
 
-                    plugin.getPlayerDataManager().updatePrefixForGroup(group);
+                    // Nur die Gruppe und ihre Nachfahren (die den Prefix ggf. erben) neu berechnen
+                    EffectiveChanges changes = updateEffective(List.of(current));
+                    changes.prefixes().add(groupCache.get(current.getKey())); // Eigener Prefix hat sich auf jeden Fall geändert
+                    publish();
+                    applyChanges(changes);
                     return true; // Erfolg
                 }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable))
                 .exceptionally(throwable -> {
@@ -196,6 +328,399 @@ public class GroupManager {
                 });
     }
 
+    /**
+     * Fügt einer Gruppe einen Permission-Eintrag hinzu (z.B. "essentials.fly", "essentials.*", "-essentials.fly" oder "*"),
+     * speichert ihn asynchron in der DB, kompiliert die Permissions neu und aktualisiert die betroffenen Online-Spieler.
+     * @param name Der Name der Gruppe.
+     * @param permission Der Eintrag.
+     * @return CompletableFuture<Boolean> - true bei Erfolg, false wenn Gruppe nicht existiert, der Eintrag ungültig
+     * oder bereits vorhanden ist oder ein Fehler auftritt.
+     */
+    public CompletableFuture<Boolean> addGroupPermission(String name, String permission) {
+        Group group = find(name);
+        String entry = PermissionTrie.normalize(permission);
+        if (group == null || entry == null || group.getPermissions().contains(entry)) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return plugin.getDatabaseManager().addGroupPermissionAsync(group.getName(), entry)
+                .thenApplyAsync(v -> {
+                    Group current = groupCache.get(group.getKey());
+                    if (current == null) return false; // Zwischenzeitlich gelöscht
+                    Set<String> entries = new LinkedHashSet<>(current.getPermissions());
+                    entries.add(entry);
+                    groupCache.put(current.getKey(), current.withPermissions(entries));
+                    plugin.getLogger().info("Permission '" + entry + "' added to group '" + group.getName() + "'.");
+                    EffectiveChanges changes = recompileAfterEntryChange(current.getKey(), entry);
+                    publish();
+                    applyChanges(changes);
+                    return true;
+                }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable))
+                .exceptionally(throwable -> {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to add permission to group in DB: " + name, throwable);
+                    return false;
+                });
+    }
+
+    /**
+     * Entfernt einen Permission-Eintrag einer Gruppe (DB asynchron), kompiliert neu und aktualisiert die betroffenen Online-Spieler.
+     * @param name Der Name der Gruppe.
+     * @param permission Der Eintrag (genau so, wie er hinzugefügt wurde, z.B. "-essentials.fly").
+     * @return CompletableFuture<Boolean> - true bei Erfolg, false wenn Gruppe oder Eintrag nicht existiert oder ein Fehler auftritt.
+     */
+    public CompletableFuture<Boolean> removeGroupPermission(String name, String permission) {
+        Group group = find(name);
+        String entry = PermissionTrie.normalize(permission);
+        if (group == null || entry == null || !group.getPermissions().contains(entry)) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return plugin.getDatabaseManager().removeGroupPermissionAsync(group.getName(), entry)
+                .thenApplyAsync(v -> {
+                    Group current = groupCache.get(group.getKey());
+                    if (current == null) return false; // Zwischenzeitlich gelöscht
+                    Set<String> entries = new LinkedHashSet<>(current.getPermissions());
+                    entries.remove(entry);
+                    groupCache.put(current.getKey(), current.withPermissions(entries));
+                    plugin.getLogger().info("Permission '" + entry + "' removed from group '" + group.getName() + "'.");
+                    EffectiveChanges changes = recompileAfterEntryChange(current.getKey(), entry);
+                    publish();
+                    applyChanges(changes);
+                    return true;
+                }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable))
+                .exceptionally(throwable -> {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to remove permission from group in DB: " + name, throwable);
+                    return false;
+                });
+    }
+
+    /**
+     * Setzt die Eltern-Gruppe einer Gruppe (DB asynchron). Die Gruppe erbt danach Permissions und - falls ihr
+     * eigener Prefix leer ist - den Prefix. Es werden nur die Gruppe und ihre Nachfahren neu berechnet.
+     * @param name Der Name der Gruppe.
+     * @param parentName Der Name der Eltern-Gruppe oder null, um die Vererbung zu entfernen.
+     * @return CompletableFuture<Boolean> - true bei Erfolg, false wenn eine der Gruppen nicht existiert,
+     * ein Zyklus entstehen würde oder ein Fehler auftritt.
+     */
+    public CompletableFuture<Boolean> setGroupParent(String name, String parentName) {
+        Group group = find(name);
+        Group parent = parentName != null ? find(parentName) : null;
+        if (group == null || (parentName != null && parent == null)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (parent != null && wouldCreateCycle(group, parent)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        String storedParent = parent != null ? parent.getName() : null;
+
+        return plugin.getDatabaseManager().updateGroupParentAsync(group.getName(), storedParent)
+                .thenApplyAsync(v -> {
+                    // Zwischenzeitliche Änderungen könnten einen Zyklus erzeugt haben -> erneut prüfen
+                    Group current = groupCache.get(group.getKey());
+                    if (current == null) return false; // Zwischenzeitlich gelöscht
+                    if (parent != null && wouldCreateCycle(current, parent)) {
+                        plugin.getLogger().warning("Parent change for group '" + group.getName() + "' rejected (cycle). Reverting in DB.");
+                        plugin.getDatabaseManager().updateGroupParentAsync(group.getName(), current.getParentName());
+                        return false;
+                    }
+                    Group updated = current.withParentName(storedParent);
+                    groupCache.put(updated.getKey(), updated);
+                    rebuildHierarchy();
+                    plugin.getLogger().info("Parent of group '" + group.getName() + "' set to " + (storedParent != null ? "'" + storedParent + "'" : "none") + ".");
+                    EffectiveChanges changes = updateEffective(List.of(updated));
+                    publish();
+                    applyChanges(changes);
+                    return true;
+                }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable))
+                .exceptionally(throwable -> {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to update parent for group in DB: " + name, throwable);
+                    return false;
+                });
+    }
+
+    /**
+     * Prüft, ob die Gruppe (direkt oder indirekt) Vorfahre der neuen Eltern-Gruppe ist oder beide gleich sind.
+     */
+    private boolean wouldCreateCycle(Group group, Group newParent) {
+        Set<String> visited = new HashSet<>();
+        Group current = newParent;
+        while (current != null && visited.add(current.getKey())) {
+            if (current.equals(group)) return true;
+            current = find(current.getParentName());
+        }
+        return current != null; // Bereits vorhandener Zyklus (sollte nicht vorkommen) -> ebenfalls ablehnen
+    }
+
+    /**
+     * Gibt die direkten Kinder einer Gruppe zurück.
+     * @param group Die Gruppe.
+     * @return Die Gruppen, die direkt von ihr erben.
+     */
+    public List<Group> getChildren(Group group) {
+        List<Group> children = new ArrayList<>();
+        for (String childName : childrenIndex.getOrDefault(group.getKey(), Set.of())) {
+            Group child = groupCache.get(childName);
+            if (child != null) children.add(child);
+        }
+        return children;
+    }
+
+    /**
+     * Baut den Kinder-Index neu auf. Unbekannte Eltern-Gruppen und Zyklen (z.B. manuell in der DB eingetragen)
+     * werden gemeldet und die betroffene Vererbung ignoriert.
+     */
+    private void rebuildHierarchy() {
+        childrenIndex.clear();
+        for (Group group : List.copyOf(groupCache.values())) {
+            String parentName = group.getParentName();
+            if (parentName == null) continue;
+            Group parent = groupCache.get(parentName.toLowerCase());
+            if (parent == null || wouldCreateCycle(group, parent)) {
+                plugin.getLogger().warning("Group '" + group.getName() + "' has an invalid parent '" + parentName + "' (missing or cyclic). Ignoring inheritance.");
+                groupCache.put(group.getKey(), group.withParentName(null));
+                continue;
+            }
+            childrenIndex.computeIfAbsent(parent.getKey(), k -> new HashSet<>()).add(group.getKey());
+        }
+    }
+
+    /**
+     * Kompiliert die eigenen Permissions aller Gruppen neu und berechnet danach alle effektiven Werte.
+     * Wird beim Laden benutzt. Muss im Bukkit-Hauptthread laufen.
+     * @return Die Gruppen, deren effektive Werte sich geändert haben.
+     */
+    private EffectiveChanges recompileAllPermissions() {
+        knownPermissions = collectKnownPermissions();
+        for (String permission : knownPermissions) {
+            permissionIds.intern(permission); // Auch Nodes ohne Regel bekommen eine ID (Prüfung liefert dann false)
+        }
+        for (Group group : List.copyOf(groupCache.values())) {
+            compileOwn(group);
+        }
+        plugin.getLogger().fine("Compiled permissions for " + groupCache.size() + " groups against " + knownPermissions.size() + " known nodes.");
+        return updateEffective(groupCache.values());
+    }
+
+    /**
+     * Kompiliert nach dem Hinzufügen/Entfernen eines Eintrags nur, was nötig ist: die Gruppe selbst und - falls ein
+     * bisher unbekannter Node hinzukommt - die Gruppen mit Wildcards, die ihn jetzt abdecken könnten.
+     * Effektive Werte werden danach nur für diese Gruppen und ihre Nachfahren neu berechnet.
+     */
+    private EffectiveChanges recompileAfterEntryChange(String key, String entry) {
+        List<Group> ownChanged = new ArrayList<>();
+        String node = PermissionTrie.nodeOf(entry);
+        if (!node.endsWith("*") && knownPermissions.add(node)) {
+            permissionIds.intern(node);
+            for (Group other : List.copyOf(groupCache.values())) {
+                if (!other.getKey().equals(key) && hasWildcard(other) && compileOwn(other)) {
+                    ownChanged.add(other);
+                }
+            }
+        }
+        compileOwn(groupCache.get(key));
+        ownChanged.add(groupCache.get(key));
+        return updateEffective(ownChanged);
+    }
+
+    private static boolean hasWildcard(Group group) {
+        for (String entry : group.getPermissions()) {
+            if (entry.endsWith("*")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Kompiliert die eigenen Einträge einer Gruppe (ohne Vererbung): einmal global und einmal pro Welt,
+     * für die die Gruppe Welt-Einträge hat. Welt-Einträge überschreiben dabei die globalen Einträge.
+     * Bei einer Änderung wird die Gruppe im Arbeitsstand durch eine neue Version ersetzt.
+     * @return true, wenn sich das Ergebnis geändert hat.
+     */
+    private boolean compileOwn(Group group) {
+        PermissionTrie globalTrie = new PermissionTrie();
+        Map<String, PermissionTrie> worldTries = new HashMap<>();
+        for (String entry : group.getPermissions()) {
+            String world = PermissionTrie.worldOf(entry);
+            if (world == null) {
+                globalTrie.add(entry);
+            } else {
+                worldTries.computeIfAbsent(world, w -> new PermissionTrie()).add(PermissionTrie.stripWorld(entry));
+            }
+        }
+        Map<String, Boolean> compiled = globalTrie.compile(knownPermissions);
+        Map<String, Map<String, Boolean>> compiledWorlds = new HashMap<>();
+        for (Map.Entry<String, PermissionTrie> world : worldTries.entrySet()) {
+            compiledWorlds.put(world.getKey(), overlay(compiled, world.getValue().compile(knownPermissions)));
+        }
+        Map<String, Map<String, Boolean>> worlds = Map.copyOf(compiledWorlds);
+        if (compiled.equals(group.getCompiledPermissions()) && worlds.equals(group.getCompiledWorldPermissions())) return false;
+        groupCache.put(group.getKey(), group.withCompiled(compiled, worlds));
+        return true;
+    }
+
+    /**
+     * Legt die oberen Werte über die unteren (obere gewinnen). Teilt unveränderliche Maps, wenn eine Seite leer ist.
+     */
+    private static Map<String, Boolean> overlay(Map<String, Boolean> lower, Map<String, Boolean> upper) {
+        if (lower.isEmpty()) return upper;
+        if (upper.isEmpty()) return lower;
+        Map<String, Boolean> merged = new HashMap<>(lower);
+        merged.putAll(upper);
+        return Map.copyOf(merged);
+    }
+
+    /**
+     * Berechnet die effektiven Permissions pro Welt: für jede Welt, in der die Gruppe selbst oder eine Eltern-Gruppe
+     * Welt-Einträge hat, die Werte der Eltern-Gruppe in dieser Welt überschrieben von den eigenen Werten in dieser Welt.
+     */
+    private static Map<String, Map<String, Boolean>> computeWorldEffective(Group group, Group parent) {
+        Set<String> worlds = new HashSet<>(group.getCompiledWorldPermissions().keySet());
+        if (parent != null) {
+            worlds.addAll(parent.getEffectiveWorldPermissions().keySet());
+        }
+        if (worlds.isEmpty()) return Map.of();
+        Map<String, Map<String, Boolean>> result = new HashMap<>();
+        for (String world : worlds) {
+            Map<String, Boolean> inherited = parent != null ? parent.getEffectivePermissions(world) : Map.of();
+            Map<String, Boolean> own = group.getCompiledWorldPermissions().getOrDefault(world, group.getCompiledPermissions());
+            result.put(world, overlay(inherited, own));
+        }
+        return Map.copyOf(result);
+    }
+
+    /**
+     * Berechnet effektive Permissions und Prefix für die angegebenen Gruppen und alle ihre Nachfahren neu.
+     * Eltern werden immer vor ihren Kindern berechnet (Sortierung nach Tiefe), jede Gruppe höchstens einmal.
+     * Eigene Werte überschreiben geerbte. Geänderte Gruppen werden im Arbeitsstand durch neue Versionen ersetzt,
+     * sichtbar werden sie erst mit {@link #publish()}. Muss im Bukkit-Hauptthread laufen.
+     * @param roots Die geänderten Gruppen.
+     * @return Die neuen Versionen der Gruppen, deren effektive Permissions bzw. deren Prefix sich geändert haben.
+     */
+    private EffectiveChanges updateEffective(Collection<Group> roots) {
+        // 1. Betroffene Gruppen sammeln (Wurzeln + alle Nachfahren)
+        Map<String, Group> affected = new HashMap<>();
+        Deque<Group> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            Group group = groupCache.get(pending.poll().getKey()); // Immer die aktuelle Version
+            if (group != null && affected.putIfAbsent(group.getKey(), group) == null) {
+                pending.addAll(getChildren(group));
+            }
+        }
+
+        // 2. Nach Tiefe sortieren, damit die Eltern-Werte bereits aktuell sind
+        List<Group> ordered = new ArrayList<>(affected.values());
+        Map<Group, Integer> depths = new HashMap<>();
+        for (Group group : ordered) {
+            depths.put(group, depthOf(group));
+        }
+        ordered.sort(Comparator.comparingInt(depths::get));
+
+        // 3. Neu berechnen
+        EffectiveChanges changes = new EffectiveChanges(new HashSet<>(), new HashSet<>());
+        for (Group group : ordered) {
+            Group parent = find(group.getParentName()); // Bereits neu berechnet (geringere Tiefe)
+            // Eigene Werte gewinnen; unveränderliche Maps werden geteilt, wenn eine Seite leer ist
+            Map<String, Boolean> effective = overlay(parent != null ? parent.getEffectivePermissions() : Map.of(),
+                    group.getCompiledPermissions());
+            Map<String, Map<String, Boolean>> worldEffective = computeWorldEffective(group, parent);
+            String prefix = group.getRawPrefix().isEmpty() && parent != null
+                    ? parent.getPrefix()
+                    : ChatColor.translateAlternateColorCodes('&', group.getRawPrefix());
+
+            boolean permissionsChanged = !effective.equals(group.getEffectivePermissions())
+                    || !worldEffective.equals(group.getEffectiveWorldPermissions());
+            boolean prefixChanged = !prefix.equals(group.getPrefix());
+            if (!permissionsChanged && !prefixChanged) continue;
+
+            Group updated = group;
+            if (permissionsChanged) {
+                // Bitsets für dieselben Welten wie die Maps, damit die ID-Prüfung zum Attachment passt
+                Map<String, Group.PermissionBits> worldBits = new HashMap<>();
+                for (Map.Entry<String, Map<String, Boolean>> world : worldEffective.entrySet()) {
+                    worldBits.put(world.getKey(), toPermissionBits(world.getValue()));
+                }
+                updated = updated.withEffectivePermissions(effective, worldEffective,
+                        toPermissionBits(effective), Map.copyOf(worldBits));
+            }
+            if (prefixChanged) {
+                updated = updated.withEffectivePrefix(prefix);
+            }
+            groupCache.put(updated.getKey(), updated);
+            if (permissionsChanged) changes.permissions().add(updated);
+            if (prefixChanged) changes.prefixes().add(updated);
+        }
+        return changes;
+    }
+
+    /**
+     * Überträgt effektive Permissions in Bitsets über die Permission-IDs. Neue Nodes bekommen dabei eine ID.
+     */
+    private Group.PermissionBits toPermissionBits(Map<String, Boolean> effective) {
+        BitSet granted = new BitSet(permissionIds.size());
+        BitSet denied = new BitSet(permissionIds.size());
+        for (Map.Entry<String, Boolean> entry : effective.entrySet()) {
+            int id = permissionIds.intern(entry.getKey());
+            if (entry.getValue()) {
+                granted.set(id);
+            } else {
+                denied.set(id);
+            }
+        }
+        return new Group.PermissionBits(granted, denied);
+    }
+
+    /**
+     * Gibt die Registry der Permission-IDs zurück (für die öffentliche API in PlayLegendTask).
+     * @return Die Registry.
+     */
+    public PermissionIdRegistry getPermissionIds() {
+        return permissionIds;
+    }
+
+    private int depthOf(Group group) {
+        int depth = 0;
+        Group current = find(group.getParentName());
+        while (current != null && depth <= groupCache.size()) { // Obergrenze schützt vor Zyklen
+            depth++;
+            current = find(current.getParentName());
+        }
+        return depth;
+    }
+
+    /**
+     * Gibt geänderte Gruppen an die Online-Spieler weiter: Permissions werden gebündelt über den PermissionManager
+     * aktualisiert, Prefix-Anzeigen und Schilder über den PlayerDataManager.
+     */
+    private void applyChanges(EffectiveChanges changes) {
+        plugin.getPlayerDataManager().refreshPermissionsForGroups(changes.permissions());
+        for (Group group : changes.prefixes()) {
+            plugin.getPlayerDataManager().updatePrefixForGroup(group);
+        }
+    }
+
+    /**
+     * Sammelt alle bekannten Nodes: von Plugins registrierte Permissions (inkl. Kinder) und alle exakten Einträge der Gruppen.
+     */
+    private Set<String> collectKnownPermissions() {
+        Set<String> known = new HashSet<>();
+        for (Permission permission : Bukkit.getPluginManager().getPermissions()) {
+            // Eigene Gruppen-Nodes nicht, sonst würde z.B. "*" die Permissions aller anderen Gruppen erben
+            if (permission.getName().startsWith(PermissionManager.GROUP_NODE_PREFIX)) continue;
+            known.add(permission.getName().toLowerCase());
+            for (String child : permission.getChildren().keySet()) {
+                known.add(child.toLowerCase());
+            }
+        }
+        for (Group group : groupCache.values()) {
+            for (String entry : group.getPermissions()) {
+                String node = PermissionTrie.nodeOf(entry);
+                if (!node.endsWith("*")) {
+                    known.add(node);
+                }
+            }
+        }
+        return known;
+    }
+
     /**
      * Stellt sicher, dass die Default-Gruppe (aus config.yml) existiert.
      * Wird nach dem Laden aus der DB und ggf. bei Fehlern aufgerufen.
@@ -203,7 +728,7 @@ public class GroupManager {
      */
     public void ensureDefaultGroupExists() {
         String defaultName = plugin.getConfigManager().getDefaultGroupName();
-        if (!groupExists(defaultName)) {
+        if (!groupCache.containsKey(defaultName.toLowerCase())) {
              plugin.getLogger().warning("Default group '" + defaultName + "' not found in cache/DB. Creating it now...");
              // Definiere einen Standard-Prefix, falls die Gruppe neu erstellt wird
              String defaultPrefix = "&7"; // Einfaches Grau ?
@@ -2,135 +2,265 @@ package eu.rawora.playLegendTask.managers;
 
 import eu.rawora.playLegendTask.PlayLegendTask;
 import eu.rawora.playLegendTask.model.Group;
+import eu.rawora.playLegendTask.model.PlayerSession;
+import eu.rawora.playLegendTask.util.WorldKeys;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionAttachment;
 import org.bukkit.permissions.PermissionAttachmentInfo;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.PluginManager;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.UUID;
 import java.util.logging.Level;
 
 public class PermissionManager {
     //Bonus Beispiel
+    /** Präfix der synthetischen Permissions, die die effektiven Permissions einer Gruppe (pro Welt) als Kinder tragen. */
+    public static final String GROUP_NODE_PREFIX = "playlegendtask.group.";
+
     private final PlayLegendTask plugin;
-    // Speichert die PermissionAttachments für jeden online Spieler
-    // Key: Spieler-UUID, Value: Bukkit PermissionAttachment
-    private final Map<UUID, PermissionAttachment> attachments = new HashMap<>();
+    // Ein PermissionAttachment pro online Spieler, bleibt über Gruppenwechsel hinweg bestehen.
+    // Attachment und der darauf gesetzte Gruppen-Node liegen in der PlayerSession des Spielers
+    private int attachments = 0;
+    // Registrierte Gruppen-Nodes: Name -> Node (nur Hauptthread)
+    private final Map<String, GroupNode> groupNodes = new HashMap<>();
+
+    // Metriken (nur im Hauptthread verändert)
+    private long updates = 0;
+    private long unchangedUpdates = 0; // Updates ohne Änderung -> kein Neuberechnen
+    private long recalculations = 0;
+    private long rebuildRecalculations = 0; // Vergleich: was Entfernen + Neu-Anlegen gekostet hätte
+    private long nodesSet = 0;
+    private long nodesUnset = 0;
+    private long nodeUpdates = 0; // Geänderte Kinder eines Gruppen-Nodes (eine Neuberechnung pro Inhaber)
+
+    /**
+     * Synthetische Permission einer Gruppe in einer Welt samt der Map, aus der ihre Kinder zuletzt übernommen wurden.
+     */
+    private static final class GroupNode {
+        final String groupKey;
+        final Permission permission;
+        Map<String, Boolean> source; // Unveränderliche Map der Gruppe -> Vergleich per Referenz reicht meistens
+
+        GroupNode(String groupKey, Permission permission, Map<String, Boolean> source) {
+            this.groupKey = groupKey;
+            this.permission = permission;
+            this.source = source;
+        }
+    }
 
     public PermissionManager(PlayLegendTask plugin) {
         this.plugin = plugin;
-        //TODO:  Hier könnte man z.B. Gruppen-Permissions aus einer Datei laden,
-        // oder der GroupManager könnte sie aus der DB laden und bereitstellen.
+        // Die Gruppen-Permissions lädt und kompiliert der GroupManager (Tabelle group_permissions)
     }
 
     /**
      * Aktualisiert die Permissions eines Spielers basierend auf seiner Gruppe.
-     * Entfernt alte Permissions und fügt die der neuen Gruppe hinzu.
+     * Die Permissions der Gruppe sind bereits kompiliert (Wildcards/Negationen aufgelöst, pro Welt vorberechnet),
+     * hier wird nichts geparst. Pro (Gruppe, Welt) gibt es eine registrierte Permission
+     * "playlegendtask.group.&lt;gruppe&gt;[.&lt;welt&gt;]", deren Kinder die effektiven Permissions sind.
+     * Auf das Attachment des Spielers wird nur dieser eine Node gesetzt - Bukkit löst die Kinder beim Neuberechnen auf.
+     * Ein Gruppen- oder Weltwechsel kostet damit unabhängig von der Anzahl der Nodes höchstens zwei Neuberechnungen
+     * (neuen Node setzen, alten entfernen). Ändern sich nur die Permissions der Gruppe, werden die Kinder des Nodes
+     * ersetzt und jeder Inhaber genau einmal neu berechnet.
      * Muss im Bukkit-Hauptthread ausgeführt werden.
      *
-     * @param player Der Spieler.
-     * @param group  Die Gruppe, deren Permissions angewendet werden sollen.
+     * @param player  Der Spieler.
+     * @param session Die Session des Spielers (enthält Gruppe, Attachment und den zuletzt gesetzten Node).
      */
-    public void updatePlayerPermissions(Player player, Group group) {
-        if (player == null || group == null) {
-            plugin.getLogger().warning("Cannot update permissions: Player or Group is null.");
+    public void updatePlayerPermissions(Player player, PlayerSession session) {
+        Group group = session != null ? session.getGroup() : null;
+        if (group == null) {
+            group = plugin.getGroupManager().getDefaultGroup();
+        }
+        if (player == null || session == null || group == null) {
+            plugin.getLogger().warning("Cannot update permissions: Player, session or group is null.");
             return;
         }
+        updates++;
 
-        UUID uuid = player.getUniqueId();
-
-        removeAttachment(player);
-
-        PermissionAttachment attachment = player.addAttachment(plugin);
-        attachments.put(uuid, attachment);
-        plugin.getLogger().info("Created new permission attachment for " + player.getName());
-
-        // 3. Berechtigungen der Gruppe setzen
-        // TODO: logik implementieren, um permissions für die Gruppe zu setzen / holen
-        // Beispiel-Szenarien:
-        // a) Permissions sind Teil des Group-Objekts
-        // b) Permissions werden aus einer separaten Konfigurationsdatei geladen
-        // c) Permissions werden direkt aus der Datenbank für die Gruppe abgefragt?
-
-        // --- Platzhalter / Beispiel-Logik ---
-
-        // Beispiel a): Wenn Group.java eine getPermissions() Methode hätte:
-        /*
-        Set<String> permissions = group.getPermissions();
-        if (permissions != null && !permissions.isEmpty()) {
-            plugin.getLogger().info("Applying " + permissions.size() + " permissions for group '" + group.getName() + "' to " + player.getName() + "...");
-            boolean hasWildcard = permissions.contains("*"); // Prüfe auf '*'
-
-            for (String permission : permissions) {
-                if (permission.equals("*")) continue; // Wildcard wird von Bukkit gehandhabt
-
-                boolean value = true;
-                // Negative Permissions (z.B. "-bukkit.command.plugins")
-                if (permission.startsWith("-")) {
-                    permission = permission.substring(1);
-                    value = false;
-                }
-                attachment.setPermission(permission.toLowerCase(), value);
-                // plugin.getLogger().fine("Set permission: " + permission + " = " + value); // Logging
-            }
-        } else {
-             plugin.getLogger().info("No specific permissions found for group '" + group.getName() + "'. Applying defaults/none.");
+        PermissionAttachment attachment = session.getAttachment();
+        // Vom GroupManager vorkompiliert, inkl. Vererbung und Welt-Einträgen
+        String worldName = player.getWorld().getName();
+        // Für die ID-Prüfungen der öffentlichen API (PlayLegendTask#hasGroupPermission), passend zum Attachment
+        session.setPermissionBits(group.getPermissionBits(worldName));
+        String worldKey = WorldKeys.of(worldName);
+        if (!group.getEffectiveWorldPermissions().containsKey(worldKey)) {
+            worldKey = null; // Keine Welt-Einträge -> globaler Node der Gruppe
         }
-
-
-         usw...........
-        */
-
-        // Oder Beispiel Einfaches Hardcoding basierend auf Gruppennamen
-        // Nur zur Demonstration hier
-        if (group.getName().equalsIgnoreCase("Admin")) {
-            attachment.setPermission("playlegendtask.admin.*", true);
-            attachment.setPermission("bukkit.command.gamemode", true);
-            plugin.getLogger().info("Applied placeholder admin permissions to " + player.getName());
-        } else if (group.getName().equalsIgnoreCase("Moderator")) {
-            attachment.setPermission("playlegendtask.admin.setgroup", true); // Beispiel: Mod darf /setgroup
-            attachment.setPermission("bukkit.command.kick", true);
-            plugin.getLogger().info("Applied placeholder moderator permissions to " + player.getName());
-        } else {
-            // Default oder andere Gruppen bekommen vielleicht nur User-Rechte
-            // attachment.setPermission("playlegendtask.user.groupinfo", true); // Falls /groupinfo eine braucht
-            plugin.getLogger().info("Applied placeholder default/user permissions to " + player.getName() + " (Group: " + group.getName() + ")");
+        Map<String, Boolean> target = group.getEffectivePermissions(worldName);
+        // Neuaufbau: Attachment entfernen (1), jeden Node setzen (n), explizit neu berechnen (1)
+        rebuildRecalculations += (attachment != null ? 1 : 0) + target.size() + 1;
+        if (attachment == null) {
+            attachment = player.addAttachment(plugin);
+            session.setAttachment(attachment);
+            session.setPermissionNode(null);
+            attachments++;
+            recalculations++; // addAttachment rechnet selbst einmal neu
+            plugin.getLogger().fine("Created permission attachment for " + player.getName());
         }
-        // TODO dies könnte man wie beispiel b) auch einfach per Config umsetzen
 
+        // Aktualisiert ggf. die Kinder des Nodes (betrifft alle Inhaber, auch diesen Spieler)
+        String node = groupNode(group, worldKey, target).getName();
+        String previous = session.getPermissionNode();
+        if (node.equals(previous)) {
+            unchangedUpdates++;
+            return;
+        }
 
-        player.recalculatePermissions();
-        plugin.getLogger().info("Recalculated permissions for " + player.getName());
+        // Jeder Aufruf rechnet die Permissions des Spielers einmal neu
+        attachment.setPermission(node, true);
+        nodesSet++;
+        recalculations++;
+        if (previous != null) {
+            attachment.unsetPermission(previous);
+            nodesUnset++;
+            recalculations++;
+        }
+        session.setPermissionNode(node);
+        plugin.getLogger().fine("Applied permission node " + node + " (" + target.size() + " permissions) for " + player.getName()
+                + " (Group: " + group.getName() + ")");
 
         // TODO: Optional: Effektive Permissions loggen zum Debuggen um Fehler zu vermeiden
         // logEffectivePermissions(player);
     }
 
     /**
-     * Entfernt das PermissionAttachment eines Spielers (z.B. bei Quit oder Gruppenwechsel).
+     * Gibt die registrierte Permission einer Gruppe in einer Welt zurück und legt sie bei Bedarf an.
+     * Haben sich die effektiven Permissions der Gruppe geändert, werden die Kinder ersetzt und alle Inhaber
+     * über {@link Permission#recalculatePermissibles()} je einmal neu berechnet.
+     */
+    private Permission groupNode(Group group, String worldKey, Map<String, Boolean> target) {
+        String name = worldKey == null ? GROUP_NODE_PREFIX + group.getKey() : GROUP_NODE_PREFIX + group.getKey() + "." + worldKey;
+        GroupNode node = groupNodes.get(name);
+        if (node == null) {
+            PluginManager pluginManager = Bukkit.getPluginManager();
+            Permission existing = pluginManager.getPermission(name);
+            if (existing != null) {
+                pluginManager.removePermission(existing); // z.B. nach /reload noch registriert
+            }
+            Permission permission = new Permission(name,
+                    "Effective permissions of group " + group.getName() + (worldKey != null ? " in world " + worldKey : ""),
+                    PermissionDefault.FALSE, target);
+            pluginManager.addPermission(permission);
+            groupNodes.put(name, new GroupNode(group.getKey(), permission, target));
+            return permission;
+        }
+        if (node.source != target) {
+            node.source = target;
+            Map<String, Boolean> children = node.permission.getChildren();
+            if (!children.equals(target)) {
+                children.clear();
+                children.putAll(target);
+                recalculations += Bukkit.getPluginManager().getPermissionSubscriptions(name).size();
+                node.permission.recalculatePermissibles();
+                nodeUpdates++;
+            }
+        }
+        return node.permission;
+    }
+
+    /**
+     * Entfernt die registrierten Permissions einer gelöschten Gruppe. Spieler, die sie noch halten, verlieren damit
+     * die Kinder bei der nächsten Neuberechnung und bekommen beim Aktualisieren den Node ihrer neuen Gruppe.
      * Muss im Bukkit-Hauptthread ausgeführt werden.
      *
-     * @param player Der Spieler.
+     * @param groupKey Der kleingeschriebene Name der Gruppe.
      */
-    public void removeAttachment(Player player) {
-        UUID uuid = player.getUniqueId();
-        if (attachments.containsKey(uuid)) {
-            try {
-                player.removeAttachment(attachments.get(uuid));
-                plugin.getLogger().info("Removed permission attachment from " + player.getName());
-            } catch (IllegalArgumentException e) {
-                // Kann passieren, wenn Attachment aus irgendeinem Grund schon entfernt wurde (z.B. durch /reload?)
-                // Ist normalerweise kein kritischer Fehler.
-                plugin.getLogger().warning("Could not remove permission attachment for " + player.getName() + " (already removed?): " + e.getMessage());
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Unexpected error removing permission attachment for " + player.getName(), e);
-            } finally {
-                attachments.remove(uuid);
+    public void removeGroupNodes(String groupKey) {
+        Iterator<GroupNode> it = groupNodes.values().iterator();
+        while (it.hasNext()) {
+            GroupNode node = it.next();
+            if (node.groupKey.equals(groupKey)) {
+                Bukkit.getPluginManager().removePermission(node.permission);
+                it.remove();
             }
         }
     }
 
+    /**
+     * Entfernt alle registrierten Gruppen-Nodes (beim Deaktivieren des Plugins).
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     */
+    public void unregisterGroupNodes() {
+        for (GroupNode node : groupNodes.values()) {
+            Bukkit.getPluginManager().removePermission(node.permission);
+        }
+        groupNodes.clear();
+    }
+
+    /**
+     * Tauscht nach einem Weltwechsel die Permissions des Spielers gegen die vorberechnete Map der neuen Welt
+     * (ein Diff wie bei einem Gruppenwechsel). Spieler ohne Attachment (noch nicht geladen) werden ignoriert,
+     * sie bekommen beim Laden ohnehin die Permissions ihrer aktuellen Welt.
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     *
+     * @param player Der Spieler.
+     */
+    public void handleWorldChange(Player player) {
+        PlayerSession session = plugin.getPlayerDataManager().getSession(player.getUniqueId());
+        if (session == null || session.getAttachment() == null) return;
+        updatePlayerPermissions(player, session);
+    }
+
+    /**
+     * Entfernt das PermissionAttachment eines Spielers (z.B. bei Quit oder Plugin-Deaktivierung).
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     *
+     * @param player  Der Spieler.
+     * @param session Die Session des Spielers.
+     */
+    public void removeAttachment(Player player, PlayerSession session) {
+        PermissionAttachment attachment = session.getAttachment();
+        if (attachment == null) return;
+        session.setAttachment(null);
+        session.setPermissionNode(null);
+        session.setPermissionBits(Group.PermissionBits.EMPTY);
+        attachments--;
+        try {
+            player.removeAttachment(attachment);
+            recalculations++;
+            plugin.getLogger().fine("Removed permission attachment from " + player.getName());
+        } catch (IllegalArgumentException e) {
+            // Kann passieren, wenn Attachment aus irgendeinem Grund schon entfernt wurde (z.B. durch /reload?)
+            // Ist normalerweise kein kritischer Fehler.
+            plugin.getLogger().warning("Could not remove permission attachment for " + player.getName() + " (already removed?): " + e.getMessage());
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Unexpected error removing permission attachment for " + player.getName(), e);
+        }
+    }
+
+    // --- Metriken ---
+
+    /** @return Anzahl der Aufrufe von updatePlayerPermissions. */
+    public long getUpdates() {
+        return updates;
+    }
+
+    /** @return Anzahl der Aufrufe, bei denen sich nichts geändert hat. */
+    public long getUnchangedUpdates() {
+        return unchangedUpdates;
+    }
+
+    /** @return Anzahl der tatsächlich ausgelösten Neuberechnungen (je geschriebener Node bzw. je Inhaber eines geänderten Gruppen-Nodes). */
+    public long getRecalculations() {
+        return recalculations;
+    }
+
+    /**
+     * Fasst die Metriken in einer Zeile zusammen (für /group stats).
+     * @return Lesbare Zusammenfassung.
+     */
+    public String getStatsSummary() {
+        double saved = rebuildRecalculations == 0 ? 0.0 : 100.0 * (rebuildRecalculations - recalculations) / rebuildRecalculations;
+        return String.format("Permissions: attachments=%d, group nodes=%d (updated %d), updates=%d, unchanged=%d, recalculations=%d (%.1f%% saved vs. rebuild), nodes set/unset=%d/%d",
+                attachments, groupNodes.size(), nodeUpdates, updates, unchangedUpdates, recalculations, saved, nodesSet, nodesUnset);
+    }
+
     /**
      * Hilfsmethode zum Loggen der aktuell aktiven Permissions eines Spielers (nützlich für Debugging).
      *
@@ -146,4 +276,4 @@ public class PermissionManager {
         }
         plugin.getLogger().info("--- End Effective Permissions ---");
     }
-}
\ No newline at end of file
+}
@@ -1,34 +1,68 @@
 package eu.rawora.playLegendTask.managers;
 
 import eu.rawora.playLegendTask.PlayLegendTask;
+import eu.rawora.playLegendTask.db.PlayerGroupWriteQueue;
 import eu.rawora.playLegendTask.model.Group;
 import eu.rawora.playLegendTask.model.PlayerGroupInfo;
+import eu.rawora.playLegendTask.model.PlayerSession;
+import eu.rawora.playLegendTask.scoreboard.Sidebar;
+import eu.rawora.playLegendTask.scoreboard.SidebarRefreshScheduler;
+import eu.rawora.playLegendTask.scoreboard.SidebarStats;
+import eu.rawora.playLegendTask.util.ExpiryWheel;
+import eu.rawora.playLegendTask.util.PlaceholderTemplate;
 import eu.rawora.playLegendTask.util.TimeUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scoreboard.DisplaySlot;
-import org.bukkit.scoreboard.Objective;
-import org.bukkit.scoreboard.Scoreboard;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 public class PlayerDataManager {
 
     private final PlayLegendTask plugin;
-    // Cache für Online-Spielerdaten: UUID -> PlayerGroupInfo
-    private final Map<UUID, PlayerGroupInfo> onlinePlayerData = new ConcurrentHashMap<>();
-    // Cache für individuelle Spieler-Scoreboards
-    private final Map<UUID, Scoreboard> playerBoards = new ConcurrentHashMap<>();
+    // Gesamter Zustand der online Spieler: UUID -> Session (Gruppeninfo, aufgelöste Gruppe, Attachment, Sidebar)
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+    // Umgekehrter Index: Key der aufgelösten Gruppe (Default bei fehlender Gruppe) -> UUIDs der online Mitglieder.
+    // Wird nur zusammen mit sessions (in cacheInfo/uncacheInfo/resolveCachedGroups) verändert
+    private final Map<String, Set<UUID>> groupMembers = new ConcurrentHashMap<>();
+    private final SidebarStats sidebarStats = new SidebarStats();
+    // Periodische Aktualisierung von Countdown- und Online-Zähler-Zeilen
+    private final SidebarRefreshScheduler sidebarRefresher;
+    // Gebündelte Neuberechnung nach Gruppenänderungen (Zeitbudget pro Tick statt eines Tasks pro Spieler)
+    private final RecalculationScheduler recalculationScheduler;
+    // Welche Scoreboard-Zeilen von welchen Platzhaltern abhängen (neu berechnet, wenn sich die Templates ändern)
+    private List<PlaceholderTemplate> lineDependencySource;
+    private int[] timeLineIndices = new int[0];
+    private int[] onlineLineIndices = new int[0];
+    private int[] timeAndOnlineLineIndices = new int[0];
+    // Ablaufzeitpunkte temporärer Gruppen (nur im Hauptthread benutzt)
+    private final ExpiryWheel<UUID> expiryWheel = new ExpiryWheel<>(System.currentTimeMillis());
+    // Staging-Cache: im AsyncPlayerPreLoginEvent vorgeladene Daten, bis der Join sie abholt
+    private final Map<UUID, StagedLoad> stagedLoads = new ConcurrentHashMap<>();
+    // Resolver für Platzhalter-Templates, pro Thread wiederverwendet
+    private final ThreadLocal<PlaceholderContext> placeholderContext = ThreadLocal.withInitial(PlaceholderContext::new);
+
+    /**
+     * Vorgeladene Daten eines Spielers. info ist null, wenn der Spieler nicht in der DB ist.
+     */
+    private record StagedLoad(PlayerGroupInfo info, PlayerGroupWriteQueue.ReadMark mark, long loadedAt) {
+    }
 
     public PlayerDataManager(PlayLegendTask plugin) {
         this.plugin = plugin;
         // Starte den Task, der abgelaufene Gruppen prüft
         startExpiryCheckTask();
+        // Starte den Task, der Countdowns und Online-Zähler in den Sidebars aktuell hält
+        this.sidebarRefresher = new SidebarRefreshScheduler(plugin, this::refreshSidebarLines);
+        sidebarRefresher.start();
+        this.recalculationScheduler = new RecalculationScheduler(plugin, this::recalculate);
     }
 
     /**
@@ -42,6 +76,7 @@ public class PlayerDataManager {
         UUID uuid = player.getUniqueId();
         getLogger().info("Loading group data for player: " + player.getName() + " (UUID: " + uuid + ")");
 
+        PlayerGroupWriteQueue.ReadMark mark = plugin.getPlayerGroupWriteQueue().beginRead(uuid);
         plugin.getDatabaseManager().getPlayerGroupInfoAsync(uuid).whenCompleteAsync((info, throwable) -> {
 
             if (throwable != null) {
@@ -51,37 +86,115 @@ public class PlayerDataManager {
                 return;
             }
 
-            if (info != null) {
-                // Daten aus DB erhalten
-                Group group = plugin.getGroupManager().getGroup(info.getGroupName());
-
-                if (group == null) {
-                    // Gruppe aus DB existiert nicht mehr im Cache/System
-                    getLogger().warning("Player " + player.getName() + " references group '" + info.getGroupName()
-                            + "' which no longer exists. Assigning default group.");
-                    assignDefaultGroup(player);
-                } else if (info.hasExpired()) {
-                    // Temporäre Gruppe ist abgelaufen
-                    getLogger().info("Player " + player.getName() + "'s temporary group '" + info.getGroupName()
-                            + "' has expired. Assigning default group.");
-                    assignDefaultGroup(player);
-                } else {
-                    // Gültige Daten gefunden
-                    // Speichere im Cache (dies kann im Async-Thread passieren, da ConcurrentHashMap)
-                    onlinePlayerData.put(uuid, info);
-                    getLogger().info("Loaded group data for " + player.getName() + ": Group=" + info.getGroupName()
-                            + ", Expiry=" + (info.isPermanent() ? "Permanent" : info.getExpiryTime()));
-                    // Visuelle Updates müssen im Hauptthread passieren!
-                    Bukkit.getScheduler().runTask(plugin, () -> updatePlayerVisuals(player));
-                }
-            } else {
-                // Spieler nicht in der DB gefunden -> Default-Gruppe zuweisen
-                getLogger().info("No group data found for " + player.getName() + ". Assigning default group.");
-                assignDefaultGroup(player);
+            if (applyLoadedInfo(player, info, mark)) {
+                // Visuelle Updates müssen im Hauptthread passieren (Callback läuft bereits dort)
+                updatePlayerVisuals(player);
             }
         }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable)); // Stelle sicher, dass der Callback im Hauptthread ausgeführt wird!
     }
 
+    /**
+     * Lädt die Gruppendaten eines Spielers VOR dem Join und legt sie im Staging-Cache ab.
+     * Wird aus dem AsyncPlayerPreLoginEvent aufgerufen, blockiert also nur den Login-Thread.
+     * Bei Timeout oder Fehler wird nichts abgelegt, der Join lädt dann wie bisher asynchron.
+     *
+     * @param uuid Die UUID des Spielers.
+     * @param name Der Name des Spielers (nur für Logs).
+     */
+    public void prefetchPlayerData(UUID uuid, String name) {
+        long now = System.currentTimeMillis();
+        long ttlMillis = plugin.getConfigManager().getJoinPrefetchStagingTtlMillis();
+        // Verwaiste Einträge (Login erlaubt, aber nie gejoint) aufräumen
+        stagedLoads.values().removeIf(staged -> now - staged.loadedAt() > ttlMillis);
+
+        try {
+            PlayerGroupWriteQueue.ReadMark mark = plugin.getPlayerGroupWriteQueue().beginRead(uuid);
+            PlayerGroupInfo info = plugin.getDatabaseManager().getPlayerGroupInfoAsync(uuid)
+                    .get(plugin.getConfigManager().getJoinPrefetchTimeoutMillis(), TimeUnit.MILLISECONDS);
+            stagedLoads.put(uuid, new StagedLoad(info, mark, System.currentTimeMillis()));
+        } catch (TimeoutException e) {
+            getLogger().warning("Prefetching group data for " + name + " timed out. Loading on join instead.");
+        } catch (ExecutionException e) {
+            getLogger().log(Level.WARNING, "Prefetching group data for " + name + " failed. Loading on join instead.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wird beim Join aufgerufen. Sind vorgeladene Daten vorhanden, werden sie sofort (synchron)
+     * angewendet - der Spieler erscheint direkt mit Prefix, Permissions und Scoreboard.
+     * Sonst wird wie bisher asynchron über loadPlayerData geladen.
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     *
+     * @param player Der Spieler, der beitritt.
+     */
+    public void handleJoin(Player player) {
+        sidebarRefresher.markOnlineCountChanged();
+        StagedLoad staged = stagedLoads.remove(player.getUniqueId());
+        if (staged == null || System.currentTimeMillis() - staged.loadedAt() > plugin.getConfigManager().getJoinPrefetchStagingTtlMillis()) {
+            loadPlayerData(player); // Fallback: kein (frischer) Prefetch vorhanden
+            return;
+        }
+        if (applyLoadedInfo(player, staged.info(), staged.mark())) {
+            updatePlayerVisuals(player);
+        }
+    }
+
+    /**
+     * Wertet geladene Gruppendaten für einen Spieler aus und legt sie im Cache ab.
+     * Zuweisungen aus der Write-Behind-Queue, die vor oder während des Reads eingereiht wurden, haben Vorrang
+     * vor dem DB-Stand; wurde während des Reads eine Zuweisung eingereiht und schon geschrieben, wird neu geladen.
+     * Ist die Gruppe ungültig, abgelaufen oder fehlt sie, wird die Default-Gruppe zugewiesen.
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     *
+     * @param player Der Spieler.
+     * @param info   Die geladenen Daten oder null, wenn der Spieler nicht in der DB ist.
+     * @param mark   Stand der Write-Behind-Queue vor dem Read.
+     * @return true, wenn gültige Daten gecacht wurden und die Visuals noch aktualisiert werden müssen;
+     *         false, wenn die Default-Gruppe zugewiesen oder neu geladen wird (aktualisiert die Visuals selbst).
+     */
+    private boolean applyLoadedInfo(Player player, PlayerGroupInfo info, PlayerGroupWriteQueue.ReadMark mark) {
+        UUID uuid = player.getUniqueId();
+        PlayerGroupWriteQueue writeQueue = plugin.getPlayerGroupWriteQueue();
+        if (writeQueue.isStale(mark)) {
+            // Der gelesene Stand kann älter sein als eine inzwischen geschriebene Zuweisung
+            getLogger().fine("Group data of " + player.getName() + " changed during the load. Reloading.");
+            loadPlayerData(player);
+            return false;
+        }
+        info = writeQueue.resolveRead(mark, info);
+
+        if (info == null) {
+            // Spieler nicht in der DB gefunden -> Default-Gruppe zuweisen
+            getLogger().info("No group data found for " + player.getName() + ". Assigning default group.");
+            assignDefaultGroup(player);
+            return false;
+        }
+
+        Group group = plugin.getGroupManager().getGroup(info.groupName());
+        if (group == null) {
+            // Gruppe aus DB existiert nicht mehr im Cache/System
+            getLogger().warning("Player " + player.getName() + " references group '" + info.groupName()
+                    + "' which no longer exists. Assigning default group.");
+            assignDefaultGroup(player);
+            return false;
+        }
+        if (info.hasExpired()) {
+            // Temporäre Gruppe ist abgelaufen
+            getLogger().info("Player " + player.getName() + "'s temporary group '" + info.groupName()
+                    + "' has expired. Assigning default group.");
+            assignDefaultGroup(player);
+            return false;
+        }
+
+        // Gültige Daten gefunden
+        cacheInfo(uuid, info);
+        getLogger().info("Loaded group data for " + player.getName() + ": Group=" + info.groupName()
+                + ", Expiry=" + (info.isPermanent() ? "Permanent" : info.expiryTime()));
+        return true;
+    }
+
     /**
      * Weist einem Spieler die Default-Gruppe zu (im Cache und speichert in DB).
      * Muss im Bukkit-Hauptthread ausgeführt werden, da es ggf. visuals aktualisiert.
@@ -105,10 +218,10 @@ public class PlayerDataManager {
         UUID uuid = player.getUniqueId();
         // Erstelle Info-Objekt für Default-Gruppe (immer permanent)
         PlayerGroupInfo defaultInfo = new PlayerGroupInfo(uuid, defaultGroup.getName(), null);
-        onlinePlayerData.put(uuid, defaultInfo);
+        PlayerGroupInfo oldInfo = cacheInfo(uuid, defaultInfo);
 
-        // Speichere Änderung asynchron in der Datenbank
-        plugin.getDatabaseManager().setPlayerGroupAsync(uuid, defaultGroup.getName(), null)
+        // Speichere Änderung über die Write-Behind-Queue (wird mit anderen Zuweisungen gebündelt)
+        plugin.getPlayerGroupWriteQueue().enqueue(uuid, defaultGroup.getName(), null, false)
                 .exceptionally(ex -> {
                     // Logge Fehler beim DB-Speichern
                     getLogger().log(Level.SEVERE, "Failed to save default group assignment to DB for " + player.getName(), ex);
@@ -120,7 +233,6 @@ public class PlayerDataManager {
         getLogger().info("Assigned default group '" + defaultGroup.getName() + "' to " + player.getName());
 
         // Sende dem Spieler ggf. eine Nachricht über den Gruppenwechsel
-        PlayerGroupInfo oldInfo = onlinePlayerData.get(uuid);
         if (oldInfo != null && !oldInfo.isPermanent() && oldInfo.hasExpired()) {
             player.sendMessage(plugin.getConfigManager().getPrefixedMessage("expiry.expired-notice"));
         }
@@ -134,12 +246,224 @@ public class PlayerDataManager {
      */
     public void unloadPlayerData(Player player) {
         UUID uuid = player.getUniqueId();
-        onlinePlayerData.remove(uuid);
-        plugin.getPermissionManager().removeAttachment(player); // Permission Attachment entfernen
-        playerBoards.remove(uuid); // Scoreboard aus Cache entfernen
+        PlayerSession session = uncacheInfo(uuid); // Session samt Attachment und Scoreboard fällt weg
+        stagedLoads.remove(uuid);
+        if (session != null) {
+            plugin.getPermissionManager().removeAttachment(player, session); // Permission Attachment entfernen
+        }
+        recalculationScheduler.remove(uuid);
+        sidebarRefresher.untrack(uuid);
+        sidebarRefresher.markOnlineCountChanged();
         getLogger().info("Unloaded group data for " + player.getName());
     }
 
+    /**
+     * Legt die Gruppeninformationen eines Spielers in seiner Session ab (legt sie beim Laden an)
+     * und plant ggf. den Ablauf ein. Einziger Weg, Sessions anzulegen bzw. ihre Gruppe zu ändern,
+     * damit Session, Mitglieder-Index und ExpiryWheel synchron bleiben.
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     *
+     * @param uuid Die UUID des Spielers.
+     * @param info Die neuen Gruppeninformationen.
+     * @return Die vorherigen Gruppeninformationen oder null.
+     */
+    private PlayerGroupInfo cacheInfo(UUID uuid, PlayerGroupInfo info) {
+        PlayerGroupInfo[] previous = new PlayerGroupInfo[1];
+        Group[] previousGroup = new Group[1];
+        String[] previousKey = new String[1];
+        // compute sperrt den Eintrag, der Index wird also im selben Schritt wie die Session umgestellt
+        PlayerSession updated = sessions.compute(uuid, (key, session) -> {
+            if (session == null) {
+                session = new PlayerSession(key, info);
+            } else {
+                previous[0] = session.getInfo();
+                previousGroup[0] = session.getGroup();
+                previousKey[0] = memberKey(session);
+                removeMember(previousKey[0], key);
+                session.setInfo(info);
+            }
+            session.setGroup(resolveGroup(info));
+            addMember(memberKey(session), key);
+            return session;
+        });
+        notifySigns(uuid, previousGroup[0], updated.getGroup());
+        PlayerGroupInfo oldInfo = previous[0];
+        if (oldInfo != null && !previousKey[0].equals(memberKey(updated))) {
+            sidebarRefresher.markOnlineCountChanged(); // %group_online% der beiden Gruppen hat sich geändert
+        }
+        if (info.isPermanent()) {
+            expiryWheel.cancel(uuid);
+        } else {
+            expiryWheel.schedule(uuid, info.expiryTime());
+        }
+        return oldInfo;
+    }
+
+    /**
+     * Entfernt die Session eines Spielers samt Eintrag im Mitglieder-Index und geplantem Ablauf.
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     *
+     * @param uuid Die UUID des Spielers.
+     * @return Die entfernte Session (zum Aufräumen von Attachment/Scoreboard) oder null.
+     */
+    private PlayerSession uncacheInfo(UUID uuid) {
+        PlayerSession[] removed = new PlayerSession[1];
+        sessions.computeIfPresent(uuid, (key, session) -> {
+            removeMember(memberKey(session), key);
+            removed[0] = session;
+            return null;
+        });
+        expiryWheel.cancel(uuid);
+        if (removed[0] != null) {
+            notifySigns(uuid, removed[0].getGroup(), null);
+        }
+        return removed[0];
+    }
+
+    /**
+     * Gibt Join, Quit und Gruppenwechsel an den SignManager weiter, der nur die betroffenen Schilder markiert.
+     */
+    private void notifySigns(UUID uuid, Group oldGroup, Group newGroup) {
+        SignManager signManager = plugin.getSignManager();
+        if (signManager != null) {
+            signManager.handleMembershipChange(uuid, oldGroup, newGroup);
+        }
+    }
+
+    /**
+     * Schlüssel im Mitglieder-Index: die aufgelöste Gruppe der Session, damit Spieler mit fehlender oder
+     * gelöschter Gruppe bei der Default-Gruppe mitgezählt (und bei deren Änderungen aktualisiert) werden.
+     * Solange noch keine Gruppen geladen sind, der gespeicherte Gruppenname.
+     */
+    private static String memberKey(PlayerSession session) {
+        Group group = session.getGroup();
+        return group != null ? group.getKey() : session.getInfo().groupName().toLowerCase();
+    }
+
+    private void addMember(String groupKey, UUID uuid) {
+        groupMembers.computeIfAbsent(groupKey, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+    }
+
+    private void removeMember(String groupKey, UUID uuid) {
+        groupMembers.computeIfPresent(groupKey, (k, members) -> {
+            members.remove(uuid);
+            return members.isEmpty() ? null : members; // Leere Sets nicht aufbewahren
+        });
+    }
+
+    /**
+     * Gibt die UUIDs der online Mitglieder einer Gruppe zurück (ohne alle Spieler durchzugehen).
+     *
+     * @param groupName Der Name der Gruppe (Groß-/Kleinschreibung egal).
+     * @return Nicht modifizierbare, live aktualisierte Sicht auf die Mitglieder (leer, wenn niemand online ist).
+     */
+    public Set<UUID> getOnlineMembers(String groupName) {
+        Set<UUID> members = groupMembers.get(groupName.toLowerCase());
+        return members != null ? Collections.unmodifiableSet(members) : Set.of();
+    }
+
+    /**
+     * Wie {@link #getOnlineMembers(String)}, aber über den vorberechneten Schlüssel der Gruppe (ohne String-Operationen).
+     *
+     * @param group Die Gruppe.
+     * @return Nicht modifizierbare, live aktualisierte Sicht auf die Mitglieder.
+     */
+    public Set<UUID> getOnlineMembers(Group group) {
+        Set<UUID> members = groupMembers.get(group.getKey());
+        return members != null ? Collections.unmodifiableSet(members) : Set.of();
+    }
+
+    /**
+     * @param group Die Gruppe.
+     * @return Anzahl der online Mitglieder der Gruppe (ohne String-Operationen, z.B. für Platzhalter).
+     */
+    public int getOnlineMemberCount(Group group) {
+        Set<UUID> members = groupMembers.get(group.getKey());
+        return members != null ? members.size() : 0;
+    }
+
+    /**
+     * @param groupName Der Name der Gruppe (Groß-/Kleinschreibung egal).
+     * @return Anzahl der online Mitglieder der Gruppe.
+     */
+    public int getOnlineMemberCount(String groupName) {
+        Set<UUID> members = groupMembers.get(groupName.toLowerCase());
+        return members != null ? members.size() : 0;
+    }
+
+    /**
+     * Löst den Gruppennamen einmalig zum Group-Objekt auf (Fallback: Default-Gruppe, falls die Gruppe
+     * nicht mehr existiert). Danach wird bei jedem Zugriff nur noch die Referenz aus der Session benutzt.
+     */
+    private Group resolveGroup(PlayerGroupInfo info) {
+        Group group = plugin.getGroupManager().getGroup(info.groupName());
+        if (group == null) {
+            getLogger().fine("Player " + info.playerUUID() + " has invalid group '" + info.groupName() + "' in cache. Falling back to default.");
+            group = plugin.getGroupManager().getDefaultGroup();
+        }
+        return group;
+    }
+
+    /**
+     * Löst die Gruppen aller Online-Spieler neu auf, nachdem Gruppen geladen, erstellt oder gelöscht wurden.
+     * Spieler, deren aufgelöste Gruppe sich dabei ändert (z.B. gelöscht -> Default), werden gebündelt neu
+     * berechnet, damit Permissions und Prefix der alten Gruppe nicht hängen bleiben.
+     * Muss im Bukkit-Hauptthread ausgeführt werden.
+     */
+    public void resolveCachedGroups() {
+        List<UUID> changed = new ArrayList<>();
+        for (UUID uuid : sessions.keySet()) {
+            Group[] previous = new Group[1];
+            // Wie in cacheInfo: Session und Mitglieder-Index im selben Schritt umstellen
+            PlayerSession session = sessions.computeIfPresent(uuid, (key, current) -> {
+                previous[0] = current.getGroup();
+                String previousKey = memberKey(current);
+                current.setGroup(resolveGroup(current.getInfo()));
+                String newKey = memberKey(current);
+                if (!previousKey.equals(newKey)) {
+                    removeMember(previousKey, key);
+                    addMember(newKey, key);
+                }
+                return current;
+            });
+            if (session == null) continue;
+            Group group = session.getGroup();
+            if (previous[0] == null || group == null || !previous[0].getKey().equals(group.getKey())) {
+                // Andere Gruppe als vorher: Schilder des Spielers aktualisieren und neu berechnen
+                notifySigns(uuid, previous[0], group);
+                changed.add(uuid);
+            }
+        }
+        if (!changed.isEmpty()) {
+            sidebarRefresher.markOnlineCountChanged(); // %group_online% der betroffenen Gruppen
+            recalculationScheduler.queue(changed, RecalculationScheduler.Kind.VISUALS);
+        }
+    }
+
+    /**
+     * Gibt die Session eines online Spielers zurück.
+     *
+     * @param uuid Die UUID des Spielers.
+     * @return Die Session oder null, wenn der Spieler nicht (mehr) geladen ist.
+     */
+    public PlayerSession getSession(UUID uuid) {
+        return sessions.get(uuid);
+    }
+
+    /**
+     * Gibt die bereits aufgelöste Gruppe eines Online-Spielers zurück, ohne den Gruppennamen nachzuschlagen.
+     * Threadsicher, gedacht für häufige Prüfungen (z.B. {@link PlayLegendTask#hasGroupPermission(UUID, int)}).
+     *
+     * @param uuid Die UUID des Spielers.
+     * @return Die Gruppe (Default bei ungültiger Gruppe) oder null, wenn der Spieler nicht geladen ist.
+     */
+    public Group getResolvedGroup(UUID uuid) {
+        PlayerSession session = sessions.get(uuid);
+        if (session == null) return null;
+        Group group = session.getGroup();
+        return group != null ? group : plugin.getGroupManager().getDefaultGroup();
+    }
+
     /**
      * Holt die gecachten Gruppeninformationen für einen online Spieler.
      *
@@ -147,28 +471,26 @@ public class PlayerDataManager {
      * @return PlayerGroupInfo oder null, wenn Spieler nicht online oder keine Daten.
      */
     public PlayerGroupInfo getPlayerGroupInfo(UUID uuid) {
-        return onlinePlayerData.get(uuid);
+        PlayerSession session = sessions.get(uuid);
+        return session != null ? session.getInfo() : null;
     }
 
     /**
-     * Holt das tatsächliche Group-Objekt für einen online Spieler aus dem Cache.
+     * Holt das tatsächliche Group-Objekt für einen online Spieler aus seiner Session.
      * Greift auf die Default-Gruppe zurück, falls der Spieler keine gültige Gruppe hat.
      *
      * @param uuid Die UUID des Spielers.
      * @return Das Group-Objekt oder das Default-Group-Objekt (oder null im Extremfall).
      */
     public Group getPlayerGroup(UUID uuid) {
-        PlayerGroupInfo info = getPlayerGroupInfo(uuid);
-        if (info != null) {
-            Group group = plugin.getGroupManager().getGroup(info.getGroupName());
-            if (group != null) {
-                return group; // Gruppe gefunden und gültig
-            }
-            // Fallback, falls Gruppe aus PlayerInfo nicht mehr existiert (sollte durch loadPlayerData behandelt werden)
-            getLogger().warning("Player " + uuid + " has invalid group '" + info.getGroupName() + "' in cache. Falling back to default.");
-        }
-        // Fallback zur Default-Gruppe, wenn Spieler keine Info hat oder Gruppe ungültig war
-        return plugin.getGroupManager().getDefaultGroup();
+        PlayerSession session = sessions.get(uuid);
+        return groupOf(session);
+    }
+
+    private Group groupOf(PlayerSession session) {
+        Group group = session != null ? session.getGroup() : null;
+        // Fallback zur Default-Gruppe, wenn Spieler keine Session hat oder die Gruppen noch nicht geladen waren
+        return group != null ? group : plugin.getGroupManager().getDefaultGroup();
     }
 
 
@@ -193,16 +515,18 @@ public class PlayerDataManager {
         final Long expiryTime = (durationMillis == null || durationMillis <= 0) ? null : (System.currentTimeMillis() + durationMillis);
         // Erstelle neues Info-Objekt (final für Lambda)
         final PlayerGroupInfo newInfo = new PlayerGroupInfo(uuid, targetGroup.getName(), expiryTime);
+        // Vorgeladene Daten sind ab jetzt veraltet -> Join lädt neu
+        stagedLoads.remove(uuid);
 
-        // Speichere asynchron in der Datenbank
-        return plugin.getDatabaseManager().setPlayerGroupAsync(uuid, targetGroup.getName(), expiryTime)
+        // Speichere über die Write-Behind-Queue; expedite, da der Befehl auf das Ergebnis wartet
+        return plugin.getPlayerGroupWriteQueue().enqueue(uuid, targetGroup.getName(), expiryTime, true)
                 .thenRunAsync(() -> {
                     // Dieser Block wird NUR ausgeführt, wenn setPlayerGroupAsync ERFOLGREICH war (keine Exception)
                     // Führe Cache-Update etc. im Hauptthread aus (falls Spieler online)
                     Player player = Bukkit.getPlayer(uuid);
                     if (player != null && player.isOnline()) {
                         Bukkit.getScheduler().runTask(plugin, () -> {
-                            onlinePlayerData.put(uuid, newInfo); // Update Cache
+                            cacheInfo(uuid, newInfo); // Update Cache
                             updatePlayerVisuals(player);       // Update Aussehen etc.
 
                             // Sende Nachricht an den Spieler über die Änderung
@@ -239,163 +563,227 @@ public class PlayerDataManager {
         }
         if (player == null || !player.isOnline()) return; // Nur für online Spieler
 
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) return; // Noch nicht geladen oder bereits entladen
         // Hole die aktuelle (oder Default) Gruppe des Spielers
-        Group group = getPlayerGroup(player.getUniqueId());
+        Group group = groupOf(session);
         if (group == null) {
             getLogger().severe("CRITICAL: Could not get any group (not even default) for player " + player.getName() + " during visual update!");
             return;
         }
 
-        String prefix = group.getPrefix();
-        String displayName = prefix + player.getName();
-        player.setDisplayName(displayName);
+        // Namen nur setzen, wenn sie sich seit dem letzten Mal geändert haben (jedes Setzen verschickt Pakete)
+        String displayName = group.getPrefix() + player.getName();
+        if (!displayName.equals(session.getDisplayName())) {
+            player.setDisplayName(displayName);
+            session.setDisplayName(displayName);
+        }
 
         if (plugin.getConfigManager().isTablistEnabled()) {
-            String tabFormat = plugin.getConfigManager().getTablistFormat();
-            String tabName = formatString(tabFormat, player, group);
-            player.setPlayerListName(tabName);
+            String tabName = formatTemplate(plugin.getConfigManager().getTablistTemplate(), player, group);
+            if (!tabName.equals(session.getPlayerListName())) {
+                player.setPlayerListName(tabName);
+                session.setPlayerListName(tabName);
+            }
         }
 
-        plugin.getPermissionManager().updatePlayerPermissions(player, group);
+        plugin.getPermissionManager().updatePlayerPermissions(player, session);
 
         if (plugin.getConfigManager().isScoreboardEnabled()) {
-            updateScoreboard(player);
+            updateScoreboard(player, session, group);
         } else {
-            if (playerBoards.containsKey(player.getUniqueId())) {
+            if (session.getSidebar() != null) {
                 player.setScoreboard(Bukkit.getScoreboardManager().getMainScoreboard());
-                playerBoards.remove(player.getUniqueId());
+                session.setSidebar(null);
+                sidebarRefresher.untrack(player.getUniqueId());
             }
         }
     }
 
     /**
      * Wird vom GroupManager aufgerufen, wenn sich der Prefix einer Gruppe ändert.
-     * Aktualisiert die visuellen Elemente aller online Spieler in dieser Gruppe.
+     * Die online Spieler dieser Gruppe werden zur gebündelten Aktualisierung ihrer visuellen Elemente
+     * eingereiht (RecalculationScheduler, Zeitbudget pro Tick).
+     * Muss im Bukkit-Hauptthread laufen.
      *
      * @param changedGroup Die Gruppe, deren Prefix geändert wurde.
      */
     public void updatePrefixForGroup(Group changedGroup) {
-        String lowerCaseName = changedGroup.getName().toLowerCase();
-        // Iteriere durch alle online Spieler im Cache
-        onlinePlayerData.forEach((uuid, info) -> {
-            // Prüfe, ob der Spieler in der geänderten Gruppe ist
-            if (info.getGroupName().equalsIgnoreCase(lowerCaseName)) {
-                Player player = Bukkit.getPlayer(uuid);
-                // Wenn Spieler noch online ist, aktualisiere seine Visuals
-                if (player != null && player.isOnline()) {
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        updatePlayerVisuals(player);
-                        getLogger().info("Updated visuals for " + player.getName() + " due to prefix change for group " + changedGroup.getName());
-                    });
-                }
+        Set<UUID> affected = getOnlineMembers(changedGroup);
+        recalculationScheduler.queue(affected, RecalculationScheduler.Kind.VISUALS);
+        getLogger().fine("Queued visual update for " + affected.size() + " player(s) due to prefix change for group " + changedGroup.getName());
+        // Aktualisiere auch die Schilder, die diese Gruppe anzeigen
+        plugin.getSignManager().markGroupDirty(changedGroup);
+    }
+
+    /**
+     * Wird vom GroupManager aufgerufen, wenn sich die effektiven Permissions von Gruppen geändert haben
+     * (auch durch Vererbung). Die betroffenen online Spieler werden zur gebündelten Aktualisierung eingereiht,
+     * der PermissionManager setzt dann nur die Differenz.
+     * Muss im Bukkit-Hauptthread laufen.
+     *
+     * @param changedGroups Die geänderten Gruppen.
+     */
+    public void refreshPermissionsForGroups(Collection<Group> changedGroups) {
+        for (Group group : changedGroups) {
+            recalculationScheduler.queue(getOnlineMembers(group), RecalculationScheduler.Kind.PERMISSIONS);
+        }
+    }
+
+    /**
+     * Führt eine eingereihte Neuberechnung aus (vom RecalculationScheduler, Hauptthread).
+     */
+    private void recalculate(UUID uuid, RecalculationScheduler.Kind kind) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null || !player.isOnline()) return;
+        if (kind == RecalculationScheduler.Kind.VISUALS) {
+            updatePlayerVisuals(player); // Setzt auch die Permissions
+        } else {
+            PlayerSession session = sessions.get(uuid);
+            if (session != null) {
+                plugin.getPermissionManager().updatePlayerPermissions(player, session);
             }
-        });
-        // Aktualisiere auch die Schilder
-        plugin.getSignManager().updateSignsForGroup(changedGroup);
+        }
+    }
+
+    /**
+     * @return Der Scheduler für gebündelte Neuberechnungen (für Metriken).
+     */
+    public RecalculationScheduler getRecalculationScheduler() {
+        return recalculationScheduler;
     }
 
     // --- Interne Scoreboard Logik ---
 
     /**
      * Erstellt oder aktualisiert das individuelle Scoreboard für einen Spieler.
+     * Die Sidebar sendet nur Zeilen, deren Text sich seit dem letzten Update geändert hat.
      * Muss im Bukkit-Hauptthread laufen.
      *
-     * @param player Der Spieler.
+     * @param player  Der Spieler.
+     * @param session Die Session des Spielers (hält die Sidebar).
+     * @param group   Die aktuelle Gruppe des Spielers.
      */
-    private void updateScoreboard(Player player) {
-        // computeIfAbsent ist thread-sicher, aber die Operationen danach müssen im Main-Thread sein
-        Scoreboard board = playerBoards.computeIfAbsent(player.getUniqueId(), k -> {
-            getLogger().info("Creating new scoreboard for " + player.getName());
-            return Bukkit.getScoreboardManager().getNewScoreboard();
-        });
-
-        Objective objective = board.getObjective("playerInfo"); // Fester Name für unser Objective
+    private void updateScoreboard(Player player, PlayerSession session, Group group) {
         String configTitle = plugin.getConfigManager().getScoreboardTitle();
-        if (objective == null) {
-            // Objective existiert nicht, neu erstellen
-            objective = board.registerNewObjective("playerInfo", "dummy", configTitle);
-            objective.setDisplaySlot(DisplaySlot.SIDEBAR); // Anzeige rechts
-        } else {
-            if (!objective.getDisplayName().equals(configTitle)) {
-                objective.setDisplayName(configTitle);
-            }
+        Sidebar sidebar = session.getSidebar();
+        if (sidebar == null) {
+            getLogger().info("Creating new scoreboard for " + player.getName());
+            sidebar = new Sidebar(Bukkit.getScoreboardManager().getNewScoreboard(), configTitle, sidebarStats);
+            session.setSidebar(sidebar);
         }
 
-        // Hole aktuelle Spielerdaten
-        PlayerGroupInfo info = getPlayerGroupInfo(player.getUniqueId());
-        Group group = getPlayerGroup(player.getUniqueId());
+        List<String> lines;
         if (group == null) { // Sollte nicht passieren
             getLogger().severe("Cannot update scoreboard for " + player.getName() + ": Group is null!");
-            // Zeige Fehler auf Scoreboard an?..
-            for (String entry : board.getEntries()) board.resetScores(entry); // Clear old scores
-            objective.getScore(ChatColor.RED + "Error: No Group").setScore(1);
-            player.setScoreboard(board);
-            return;
+            lines = List.of(ChatColor.RED + "Error: No Group");
+        } else {
+            // --- Zeilen rendern ---
+            List<PlaceholderTemplate> configLines = plugin.getConfigManager().getScoreboardLineTemplates();
+            lines = new ArrayList<>(configLines.size());
+            for (PlaceholderTemplate lineTemplate : configLines) {
+                lines.add(formatTemplate(lineTemplate, player, group)); // Ersetze Platzhalter
+            }
         }
+        sidebar.update(configTitle, lines);
 
-        // --- Zeilen setzen ---
-        List<String> configLines = plugin.getConfigManager().getScoreboardLines();
-        int scoreCount = configLines.size(); // Höchster Score = oberste Zeile
-
-        // Temporäre Liste für neue Einträge, um alte zu entfernen
-        List<String> currentEntries = new ArrayList<>();
+        // Nur setzen, wenn der Spieler das Board noch nicht hat (jedes setScoreboard schickt das komplette Board)
+        if (player.getScoreboard() != sidebar.getScoreboard()) {
+            player.setScoreboard(sidebar.getScoreboard());
+        }
+        sidebarRefresher.track(player.getUniqueId());
+    }
 
-        for (String lineFormat : configLines) {
-            String lineText = formatString(lineFormat, player, group); // Ersetze Platzhalter
-            // Scoreboard-Zeilen haben Längenlimits (ca. 40 Zeichen, je nach Version)
-            // und jede Zeile braucht einen eindeutigen "Entry"-Namen.
-            // Wir kürzen und versuchen, durch Leerzeichen am Ende Eindeutigkeit zu schaffen, falls nötig.
-            String entry = ensureUniqueEntry(board, lineText, scoreCount);
-            currentEntries.add(entry);
+    /**
+     * Wird vom SidebarRefreshScheduler aufgerufen und rendert nur die Zeilen neu,
+     * die von der Zeit (%expiry_time%) bzw. der Spieleranzahl (%online_players%) abhängen.
+     * Läuft im Hauptthread.
+     *
+     * @param player      Der Spieler.
+     * @param timeLines   true, wenn zeitabhängige Zeilen fällig sind.
+     * @param onlineLines true, wenn sich die Spieleranzahl seit dem letzten Rendern geändert hat.
+     */
+    private void refreshSidebarLines(Player player, boolean timeLines, boolean onlineLines) {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        Sidebar sidebar = session != null ? session.getSidebar() : null;
+        if (sidebar == null) return;
+
+        List<PlaceholderTemplate> templates = plugin.getConfigManager().getScoreboardLineTemplates();
+        updateLineDependencies(templates);
+
+        // Permanente Gruppen haben keinen laufenden Countdown
+        PlayerGroupInfo info = session.getInfo();
+        boolean refreshTime = timeLines && timeLineIndices.length > 0 && info != null && !info.isPermanent();
+        boolean refreshOnline = onlineLines && onlineLineIndices.length > 0;
+
+        int[] indices;
+        if (refreshTime && refreshOnline) {
+            indices = timeAndOnlineLineIndices;
+        } else if (refreshTime) {
+            indices = timeLineIndices;
+        } else if (refreshOnline) {
+            indices = onlineLineIndices;
+        } else {
+            return; // Nichts fällig
+        }
 
-            try {
-                objective.getScore(entry).setScore(scoreCount--);
-            } catch (IllegalArgumentException e) {
-                getLogger().warning("Could not set scoreboard score for entry (too long?): " + entry);
-            } catch (IllegalStateException e) {
-                getLogger().warning("Could not set scoreboard score (objective unregistered?): " + entry);
-            }
+        Group group = groupOf(session);
+        if (group == null) return;
+        sidebar.refreshLines(indices, index -> formatTemplate(templates.get(index), player, group));
+    }
 
+    /**
+     * Ermittelt einmal pro Template-Liste, welche Zeilen von welchen Platzhaltern abhängen.
+     */
+    private void updateLineDependencies(List<PlaceholderTemplate> templates) {
+        if (templates == lineDependencySource) return; // Unverändert seit dem letzten Aufruf
+        List<Integer> time = new ArrayList<>();
+        List<Integer> online = new ArrayList<>();
+        List<Integer> both = new ArrayList<>();
+        for (int i = 0; i < templates.size(); i++) {
+            PlaceholderTemplate template = templates.get(i);
+            boolean usesTime = template.uses(PlaceholderTemplate.Placeholder.EXPIRY_TIME);
+            boolean usesOnline = template.uses(PlaceholderTemplate.Placeholder.ONLINE_PLAYERS)
+                    || template.uses(PlaceholderTemplate.Placeholder.GROUP_ONLINE);
+            if (usesTime) time.add(i);
+            if (usesOnline) online.add(i);
+            if (usesTime || usesOnline) both.add(i);
         }
+        timeLineIndices = time.stream().mapToInt(Integer::intValue).toArray();
+        onlineLineIndices = online.stream().mapToInt(Integer::intValue).toArray();
+        timeAndOnlineLineIndices = both.stream().mapToInt(Integer::intValue).toArray();
+        lineDependencySource = templates;
+    }
 
-        for (String oldEntry : new HashSet<>(board.getEntries())) {
-            if (!currentEntries.contains(oldEntry) && objective.equals(board.getObjective(DisplaySlot.SIDEBAR))) {
-                board.resetScores(oldEntry);
-            }
+    /**
+     * Fasst den Zustand aller Sessions zusammen (für /group stats), um den Speicher pro online Spieler abschätzen zu können.
+     * Muss im Bukkit-Hauptthread aufgerufen werden.
+     * @return Lesbare Zusammenfassung.
+     */
+    public String getSessionStatsSummary() {
+        int attachments = 0;
+        int sidebars = 0;
+        int groupNodes = 0;
+        for (PlayerSession session : sessions.values()) {
+            if (session.getAttachment() != null) attachments++;
+            if (session.getSidebar() != null) sidebars++;
+            if (session.getPermissionNode() != null) groupNodes++;
         }
-
-        player.setScoreboard(board);
+        return String.format("Sessions: online=%d, attachments=%d, sidebars=%d, with group node=%d, indexed groups=%d",
+                sessions.size(), attachments, sidebars, groupNodes, groupMembers.size());
     }
 
     /**
-     * Stellt sicher, dass ein Scoreboard-Eintrag eindeutig ist und nicht zu lang.
-     * Fügt ggf. unsichtbare Farb-Codes hinzu, um Duplikate zu vermeiden.
-     *
-     * @param board Das Scoreboard.
-     * @param text  Der gewünschte Text.
-     * @param score Der Score-Wert (kann zur Eindeutigkeit beitragen).
-     * @return Ein (hoffentlich) eindeutiger und gültiger Eintrag.
-     */
-    private String ensureUniqueEntry(Scoreboard board, String text, int score) {
-        int maxLength = 40;
-        String baseEntry = text.length() > maxLength ? text.substring(0, maxLength) : text;
-        String finalEntry = baseEntry;
-        int attempt = 0;
-
-        while (board.getEntries().contains(finalEntry)) {
-            attempt++;
-            finalEntry = baseEntry.substring(0, Math.min(baseEntry.length(), maxLength - 2)) + ChatColor.values()[attempt % 16] + ChatColor.RESET;
-            if (attempt > 16) {
-                finalEntry = baseEntry.substring(0, Math.min(baseEntry.length(), maxLength - 4)) + score;
-                getLogger().warning("Could not create unique scoreboard entry for: " + text);
-                break;
-            }
-        }
-        return finalEntry;
+     * @return Zähler für gesendete Sidebar-Änderungen (für /group stats).
+     */
+    public SidebarStats getSidebarStats() {
+        return sidebarStats;
     }
 
     /**
      * Ersetzt Platzhalter in einem Format-String mit Spieler- und Gruppen-Daten.
+     * Für wiederholt genutzte Formate aus der Config besser die vorkompilierten Templates
+     * aus dem ConfigManager mit formatTemplate verwenden.
      *
      * @param format Der String mit Platzhaltern (z.B. "%player%", "%group_prefix%").
      * @param player Der Spieler.
@@ -404,41 +792,85 @@ public class PlayerDataManager {
      */
     public String formatString(String format, Player player, Group group) {
         if (format == null) return "";
+        return formatTemplate(PlaceholderTemplate.compile(format), player, group);
+    }
+
+    /**
+     * Rendert ein vorkompiliertes Template mit Spieler- und Gruppen-Daten.
+     *
+     * @param template Das Template (z.B. aus ConfigManager#getTablistTemplate).
+     * @param player   Der Spieler (kann null sein, z.B. bei Schildern offline Spieler).
+     * @param group    Die Gruppe des Spielers.
+     * @return Der fertige, farbige String.
+     */
+    public String formatTemplate(PlaceholderTemplate template, Player player, Group group) {
+        return formatTemplate(template, (player != null) ? player.getName() : "N/A", player, group);
+    }
 
-        Group effectiveGroup = (group != null) ? group : plugin.getGroupManager().getDefaultGroup();
-        PlayerGroupInfo info = (player != null) ? getPlayerGroupInfo(player.getUniqueId()) : null;
+    /**
+     * Wie formatTemplate, aber mit explizitem Spielernamen (z.B. für offline Spieler auf Schildern).
+     *
+     * @param template   Das Template.
+     * @param playerName Der Name, der für %player% eingesetzt wird.
+     * @param player     Der Spieler oder null, wenn offline.
+     * @param group      Die Gruppe des Spielers.
+     * @return Der fertige, farbige String.
+     */
+    public String formatTemplate(PlaceholderTemplate template, String playerName, Player player, Group group) {
+        if (template.isStatic()) return template.render(null); // Kein Platzhalter -> nichts auflösen
+        PlaceholderContext context = placeholderContext.get();
+        context.playerName = playerName;
+        context.player = player;
+        context.group = (group != null) ? group : plugin.getGroupManager().getDefaultGroup();
+        try {
+            return template.render(context);
+        } finally {
+            context.player = null; // Keine Referenzen auf Spieler festhalten
+            context.group = null;
+        }
+    }
 
-        String playerName = (player != null) ? player.getName() : "N/A";
-        String groupName = (effectiveGroup != null) ? effectiveGroup.getName() : "N/A";
-        String groupPrefix = (effectiveGroup != null) ? effectiveGroup.getPrefix() : "";
-        String expiryTimeStr = "Permanent"; // Standard
+    /**
+     * Wiederverwendbarer Resolver für die Platzhalter. Werte werden erst berechnet,
+     * wenn ihr Platzhalter im Template tatsächlich vorkommt.
+     */
+    private final class PlaceholderContext implements PlaceholderTemplate.Resolver {
+        private String playerName;
+        private Player player;
+        private Group group;
+
+        @Override
+        public void append(PlaceholderTemplate.Placeholder placeholder, StringBuilder target) {
+            switch (placeholder) {
+                case PLAYER -> target.append(playerName);
+                case GROUP_NAME, RANK -> target.append(group != null ? group.getName() : "N/A");
+                case GROUP_PREFIX -> target.append(group != null ? group.getPrefix() : "");
+                case EXPIRY_TIME -> appendExpiry(target);
+                case ONLINE_PLAYERS -> target.append(Bukkit.getOnlinePlayers().size());
+                case GROUP_ONLINE -> target.append(group != null ? getOnlineMemberCount(group) : 0);
+            }
+        }
 
-        // Bestimme Ablaufzeit-String
-        if (info != null && !info.isPermanent()) {
-            long remaining = info.getExpiryTime() - System.currentTimeMillis();
+        private void appendExpiry(StringBuilder target) {
+            PlayerGroupInfo info = (player != null) ? getPlayerGroupInfo(player.getUniqueId()) : null;
+            if (info == null || info.isPermanent()) {
+                target.append("Permanent");
+                return;
+            }
+            long remaining = info.expiryTime() - System.currentTimeMillis();
             if (remaining > 0) {
-                expiryTimeStr = TimeUtil.formatDuration(remaining);
+                TimeUtil.appendDuration(target, remaining);
             } else {
-                expiryTimeStr = "Expired";
+                target.append("Expired");
             }
         }
-
-        // Ersetze Platzhalter
-        format = format.replace("%player%", playerName);
-        format = format.replace("%group_name%", groupName);
-        format = format.replace("%rank%", groupName);
-        format = format.replace("%group_prefix%", groupPrefix);
-        format = format.replace("%expiry_time%", expiryTimeStr);
-        format = format.replace("%online_players%", String.valueOf(Bukkit.getOnlinePlayers().size()));
-
-        return ChatColor.translateAlternateColorCodes('&', format);
     }
 
-
     // --- Task für Ablauf-Checks ---
 
     /**
-     * Startet einen wiederholenden, asynchronen Task, der prüft, ob Gruppen abgelaufen sind.
+     * Startet einen Task, der jeden Tick das ExpiryWheel weiterdreht.
+     * Kostet nur etwas, wenn tatsächlich ein Ablauf fällig ist - es wird nicht mehr über alle Spieler iteriert.
      */
     private void startExpiryCheckTask() {
         new BukkitRunnable() {
@@ -446,47 +878,31 @@ public class PlayerDataManager {
             public void run() {
                 checkExpiredGroups();
             }
-            // Prüfe z.B. alle 5 Sekunden (100 Ticks). Passe Intervall nach Bedarf an.
-            // Häufigere Prüfung = schnellere Reaktion, aber mehr Last.
-        }.runTaskTimerAsynchronously(plugin, 120L, 100L); // Start nach 6 Sek, dann alle 5 Sek
+        }.runTaskTimer(plugin, 1L, 1L); // Im Hauptthread, jeden Tick
     }
 
     /**
-     * Prüft alle online Spieler im Cache auf abgelaufene temporäre Gruppen.
-     * Wenn eine Gruppe abgelaufen ist, wird im Hauptthread die Default-Gruppe zugewiesen.
-     * Läuft asynchron.
+     * Weist allen Spielern, deren temporäre Gruppe seit dem letzten Tick abgelaufen ist, die Default-Gruppe zu.
+     * Läuft im Hauptthread.
      */
     private void checkExpiredGroups() {
-        long now = System.currentTimeMillis();
-        List<UUID> expiredPlayersUUIDs = new ArrayList<>();
-
-        // Iteriere sicher durch die ConcurrentHashMap
-        onlinePlayerData.forEach((uuid, info) -> {
-            // Prüfe nur temporäre Gruppen, die jetzt abgelaufen sind
-            if (!info.isPermanent() && info.getExpiryTime() <= now) {
-                expiredPlayersUUIDs.add(uuid);
+        List<UUID> expiredPlayersUUIDs = expiryWheel.advance(System.currentTimeMillis());
+        if (expiredPlayersUUIDs.isEmpty()) return;
+
+        getLogger().info("Found " + expiredPlayersUUIDs.size() + " players with expired groups. Assigning default group...");
+        for (UUID uuid : expiredPlayersUUIDs) {
+            Player player = Bukkit.getPlayer(uuid);
+            PlayerGroupInfo currentInfo = getPlayerGroupInfo(uuid);
+            if (player == null || !player.isOnline() || currentInfo == null || currentInfo.isPermanent()) {
+                // Spieler ist offline oder hat inzwischen eine andere Gruppe -> nichts zu tun
+                continue;
+            }
+            if (currentInfo.hasExpired()) {
+                assignDefaultGroup(player);
+            } else {
+                // Sollte nicht passieren (Wheel löst nie zu früh aus), zur Sicherheit neu einplanen
+                expiryWheel.schedule(uuid, currentInfo.expiryTime());
             }
-        });
-
-        // Wenn Spieler mit abgelaufenen Gruppen gefunden wurden...
-        if (!expiredPlayersUUIDs.isEmpty()) {
-            // ...führe die Zuweisung der Default-Gruppe im Hauptthread aus
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                getLogger().info("Found " + expiredPlayersUUIDs.size() + " players with expired groups. Assigning default group...");
-                for (UUID uuid : expiredPlayersUUIDs) {
-                    Player player = Bukkit.getPlayer(uuid);
-                    if (player != null && player.isOnline()) {
-                        PlayerGroupInfo currentInfo = onlinePlayerData.get(uuid);
-                        if (currentInfo != null && !currentInfo.isPermanent() && currentInfo.getExpiryTime() <= System.currentTimeMillis()) {
-                            assignDefaultGroup(player);
-                        }
-                    } else {
-                        // Spieler ist offline gegangen, bevor wir im Main-Thread waren.
-                        // Daten werden beim nächsten Login korrekt geladen. Cache wurde bei Quit geleert.
-                        // TODO: Man könnte hier die DB direkt aktualisieren, aber Login-Check reicht meist.
-                    }
-                }
-            });
         }
     }
 
@@ -494,16 +910,46 @@ public class PlayerDataManager {
 
     /**
      * Lädt Daten für alle Spieler, die beim Plugin-Start bereits online sind.
+     * Statt einer Abfrage pro Spieler wird alles mit wenigen IN (...)-Abfragen geladen
+     * und anschließend in einem einzigen Durchlauf im Hauptthread angewendet.
      */
     public void initializeOnlinePlayers() {
         getLogger().info("Initializing data for " + Bukkit.getOnlinePlayers().size() + " players already online...");
-        // Muss im Hauptthread laufen, da loadPlayerData Callbacks im Hauptthread ausführt
+        // Muss im Hauptthread laufen, da die Callbacks im Hauptthread ausgeführt werden
         Bukkit.getScheduler().runTask(plugin, () -> {
+            List<UUID> uuids = new ArrayList<>();
+            Map<UUID, PlayerGroupWriteQueue.ReadMark> marks = new HashMap<>();
             for (Player player : Bukkit.getOnlinePlayers()) {
-                loadPlayerData(player);
+                uuids.add(player.getUniqueId());
+                marks.put(player.getUniqueId(), plugin.getPlayerGroupWriteQueue().beginRead(player.getUniqueId()));
             }
+            if (uuids.isEmpty()) return;
+
+            plugin.getDatabaseManager().getPlayerGroupInfosAsync(uuids).whenCompleteAsync((infos, throwable) -> {
+                if (throwable != null) {
+                    // Fallback: Einzeln laden (alter Weg)
+                    getLogger().log(Level.SEVERE, "Failed to bulk load player data from DB. Falling back to per-player loading.", throwable);
+                    for (UUID uuid : uuids) {
+                        Player player = Bukkit.getPlayer(uuid);
+                        if (player != null && player.isOnline()) {
+                            loadPlayerData(player);
+                        }
+                    }
+                    return;
+                }
+
+                int loaded = 0;
+                for (UUID uuid : uuids) {
+                    Player player = Bukkit.getPlayer(uuid);
+                    if (player == null || !player.isOnline()) continue; // Inzwischen offline
+                    if (applyLoadedInfo(player, infos.get(uuid), marks.get(uuid))) {
+                        updatePlayerVisuals(player);
+                    }
+                    loaded++;
+                }
+                getLogger().info("Finished initializing " + loaded + " online players (" + infos.size() + " stored assignments found).");
+            }, runnable -> Bukkit.getScheduler().runTask(plugin, runnable));
         });
-        getLogger().info("Finished initializing online players.");
     }
 
     /**
@@ -513,12 +959,12 @@ public class PlayerDataManager {
         getLogger().info("Cleaning up player data (Permissions, Scoreboards)...");
         // Muss im Hauptthread laufen wegen Bukkit API (getScoreboardManager, removeAttachment)
         Bukkit.getScheduler().runTask(plugin, () -> {
-            // Iteriere sicher über die Keys des Caches
-            for (UUID uuid : new HashSet<>(onlinePlayerData.keySet())) {
+            for (PlayerSession session : sessions.values()) {
+                UUID uuid = session.getUuid();
                 Player player = Bukkit.getPlayer(uuid);
                 if (player != null && player.isOnline()) {
-                    plugin.getPermissionManager().removeAttachment(player);
-                    if (playerBoards.containsKey(uuid)) {
+                    plugin.getPermissionManager().removeAttachment(player, session);
+                    if (session.getSidebar() != null) {
                         try {
                             player.setScoreboard(Bukkit.getScoreboardManager().getMainScoreboard());
                         } catch (Exception e) {
@@ -527,8 +973,11 @@ public class PlayerDataManager {
                     }
                 }
             }
-            onlinePlayerData.clear();
-            playerBoards.clear();
+            sessions.clear();
+            groupMembers.clear();
+            expiryWheel.clear();
+            sidebarRefresher.clear();
+            recalculationScheduler.clear();
             getLogger().info("Player data cleanup finished.");
         });
     }
@@ -0,0 +1,156 @@
+package eu.rawora.playLegendTask.managers;
+
+import eu.rawora.playLegendTask.PlayLegendTask;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Warteschlange für Spieler, deren Permissions bzw. Anzeige nach einer Gruppenänderung neu berechnet werden müssen.
+ * Statt eines Tasks pro Spieler wird pro Tick nur so lange abgearbeitet, bis das Zeitbudget
+ * (permissions.recalculation-budget-ms) verbraucht ist - der Rest bleibt für den nächsten Tick.
+ * Spieler stehen höchstens einmal in der Queue (in Reihenfolge des ersten Einreihens), eine volle
+ * Aktualisierung ersetzt dabei eine bereits eingereihte reine Permission-Aktualisierung.
+ * Läuft komplett im Bukkit-Hauptthread.
+ */
+public class RecalculationScheduler {
+
+    /**
+     * Art der Neuberechnung. VISUALS schließt PERMISSIONS ein (updatePlayerVisuals setzt auch die Permissions).
+     */
+    public enum Kind {
+        PERMISSIONS,
+        VISUALS
+    }
+
+    /**
+     * Wird pro fälligem Spieler aufgerufen. Die Gruppe wird erst dann ermittelt, es gilt also immer der neueste Stand.
+     */
+    @FunctionalInterface
+    public interface Worker {
+        void recalculate(UUID uuid, Kind kind);
+    }
+
+    private final PlayLegendTask plugin;
+    private final Worker worker;
+    private final LinkedHashMap<UUID, Kind> queue = new LinkedHashMap<>();
+    private BukkitTask task;
+
+    // Metriken (nur im Hauptthread verändert)
+    private long queued = 0;
+    private long duplicates = 0; // Bereits eingereihte Spieler
+    private long processed = 0;
+    private long ticks = 0; // Ticks, in denen gearbeitet wurde
+    private long totalNanos = 0;
+    private long maxTickNanos = 0;
+    private long lastTickNanos = 0;
+    private int peakBacklog = 0;
+
+    public RecalculationScheduler(PlayLegendTask plugin, Worker worker) {
+        this.plugin = plugin;
+        this.worker = worker;
+    }
+
+    /**
+     * Reiht Spieler ein. Der Task läuft nur, solange die Queue nicht leer ist.
+     *
+     * @param uuids Die UUIDs der betroffenen Spieler.
+     * @param kind  Die Art der Neuberechnung.
+     */
+    public void queue(Collection<UUID> uuids, Kind kind) {
+        for (UUID uuid : uuids) {
+            queued++;
+            Kind previous = queue.get(uuid);
+            if (previous == null) {
+                queue.put(uuid, kind);
+            } else {
+                duplicates++;
+                if (kind == Kind.VISUALS && previous != Kind.VISUALS) {
+                    queue.put(uuid, kind); // Position in der Queue bleibt erhalten
+                }
+            }
+        }
+        peakBacklog = Math.max(peakBacklog, queue.size());
+        if (!queue.isEmpty() && task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Entfernt einen Spieler aus der Queue (z.B. beim Quit).
+     *
+     * @param uuid Die UUID des Spielers.
+     */
+    public void remove(UUID uuid) {
+        queue.remove(uuid);
+    }
+
+    public void clear() {
+        queue.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        long budgetNanos = (long) (Math.max(0.1, plugin.getConfigManager().getRecalculationBudgetMillis()) * 1_000_000L);
+        long start = System.nanoTime();
+        long elapsed = 0;
+        Iterator<Map.Entry<UUID, Kind>> it = queue.entrySet().iterator();
+        // Mindestens ein Spieler pro Tick, damit die Queue auch bei sehr kleinem Budget abgearbeitet wird
+        while (it.hasNext() && elapsed < budgetNanos) {
+            Map.Entry<UUID, Kind> entry = it.next();
+            it.remove();
+            try {
+                worker.recalculate(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error recalculating player " + entry.getKey(), e);
+            }
+            processed++;
+            elapsed = System.nanoTime() - start;
+        }
+
+        ticks++;
+        totalNanos += elapsed;
+        lastTickNanos = elapsed;
+        maxTickNanos = Math.max(maxTickNanos, elapsed);
+        if (queue.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    // --- Metriken ---
+
+    /** @return Anzahl der aktuell wartenden Spieler. */
+    public int getBacklog() {
+        return queue.size();
+    }
+
+    /** @return Anzahl der verarbeiteten Spieler. */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /** @return Durchschnittliche Zeit pro Tick mit Arbeit in Millisekunden. */
+    public double getAverageTickMillis() {
+        return ticks == 0 ? 0.0 : totalNanos / (double) ticks / 1_000_000.0;
+    }
+
+    /**
+     * Fasst die Metriken in einer Zeile zusammen (für /group stats).
+     * @return Lesbare Zusammenfassung.
+     */
+    public String getStatsSummary() {
+        return String.format("Recalculation: backlog=%d (peak %d), queued=%d, duplicates=%d, processed=%d, ticks=%d, ms/tick avg/last/max=%.2f/%.2f/%.2f",
+                queue.size(), peakBacklog, queued, duplicates, processed, ticks,
+                getAverageTickMillis(), lastTickNanos / 1_000_000.0, maxTickNanos / 1_000_000.0);
+    }
+}
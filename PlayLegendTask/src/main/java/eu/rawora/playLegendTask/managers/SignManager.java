@@ -3,26 +3,108 @@ package eu.rawora.playLegendTask.managers;
 import eu.rawora.playLegendTask.PlayLegendTask;
 import eu.rawora.playLegendTask.model.Group;
 import eu.rawora.playLegendTask.model.PlayerGroupInfo;
+import eu.rawora.playLegendTask.util.LongObjectMap;
+import eu.rawora.playLegendTask.util.PlaceholderTemplate;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.Sign;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 public class SignManager {
 
     private final PlayLegendTask plugin;
-    // Cache für Schild-Positionen: Location -> Target Player UUID
-    // ConcurrentHashMap für Thread-Sicherheit, da Updates aus async Task kommen können
-    private final Map<Location, UUID> signLocations = new ConcurrentHashMap<>();
+    // Registrierte Schilder pro Welt (Name), nach gepackten Block- bzw. Chunk-Koordinaten.
+    // Alles nur im Hauptthread verändert und gelesen (Events, Tasks und DB-Callbacks laufen dort)
+    private final Map<String, WorldSigns> worlds = new HashMap<>();
+    private int signCount = 0;
+    // Rückwärts-Indizes: Zielspieler -> Schilder und zuletzt angezeigte Gruppe -> Schilder.
+    // Änderungen markieren darüber nur die betroffenen Schilder, statt alle periodisch neu zu rendern
+    private final Map<UUID, Set<InfoSign>> signsByTarget = new HashMap<>();
+    private final Map<String, Set<InfoSign>> signsByGroup = new HashMap<>();
+    // Render-Queue: markierte Schilder warten auf die (asynchrone) Berechnung ihres Texts, fertige Ergebnisse
+    // werden pro Tick nur im Rahmen von signs.render-budget-ms angewendet. Ereignisgesteuert markierte Schilder
+    // haben Vorrang vor den periodischen Countdown-Aktualisierungen
+    private final Set<InfoSign> dirtySigns = new LinkedHashSet<>();
+    private final Set<InfoSign> countdownSigns = new LinkedHashSet<>();
+    private final ArrayDeque<RenderResult> readyDirty = new ArrayDeque<>();
+    private final ArrayDeque<RenderResult> readyCountdown = new ArrayDeque<>();
+    private BukkitTask renderTask;
+
+    // Metriken (nur im Hauptthread verändert)
+    private long computed = 0;
+    private long applied = 0; // Tatsächlich geschriebene Schilder
+    private long packetsSent = 0; // Einzelne sendSignChange-Aufrufe (Paket-Modus)
+    private long skippedUnseen = 0; // Nicht berechnete Schilder ohne Zuschauer (Paket-Modus)
+    private long unchanged = 0;
+    private long stale = 0; // Ergebnisse, die inzwischen durch eine neuere Berechnung überholt waren
+    private long ticks = 0;
+    private long totalNanos = 0;
+    private long maxTickNanos = 0;
+    private int peakBacklog = 0;
+
+    /**
+     * Ein registriertes Info-Schild. Gleichheit über die Objekt-Identität - es gibt pro Position genau eines,
+     * die (schwere, veränderbare) Location wird nie als Schlüssel benutzt.
+     */
+    private static final class InfoSign {
+        final Location location; // Für DB-Zugriffe und den Block
+        final long blockKey;
+        final long chunkKey;
+        final UUID target;
+        String renderedGroup; // Key der zuletzt angezeigten Gruppe oder null
+        int renderVersion; // Wird pro Berechnung erhöht, ältere Ergebnisse werden verworfen
+        String[] appliedLines; // Zuletzt geschriebener/gesendeter Text oder null (dann wird beim nächsten Ergebnis geschrieben)
+
+        InfoSign(Location location, UUID target) {
+            this.location = location;
+            this.blockKey = LongObjectMap.packBlock(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+            this.chunkKey = LongObjectMap.packChunk(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            this.target = target;
+        }
+    }
+
+    /**
+     * Schilder einer Welt: nach Block, nach Chunk und - als Teilmenge mit denselben Set-Instanzen - nur die
+     * geladenen Chunks (gepflegt über Chunk-Load/Unload-Events). Schilder in ungeladenen Chunks kosten also nichts.
+     */
+    private static final class WorldSigns {
+        final LongObjectMap<InfoSign> byBlock = new LongObjectMap<>();
+        final LongObjectMap<Set<InfoSign>> byChunk = new LongObjectMap<>();
+        final LongObjectMap<Set<InfoSign>> loadedChunks = new LongObjectMap<>();
+    }
+
+    /**
+     * Eine Berechnung für ein Schild: Die Version wird im Hauptthread vergeben, nur das Ziel wird asynchron gelesen.
+     */
+    private record RenderJob(InfoSign sign, UUID target, int version) {
+    }
+
+    /**
+     * Asynchron berechneter Text eines Schilds. group ist null, wenn keine Gruppe verfügbar war (Fehlertext).
+     */
+    private record RenderResult(InfoSign sign, int version, String[] lines, Group group) {
+    }
 
     public SignManager(PlayLegendTask plugin) {
         this.plugin = plugin;
@@ -46,11 +128,21 @@ public class SignManager {
                 return;
             }
             if (loadedSigns != null) {
-                signLocations.clear(); // Alten Cache leeren
-                signLocations.putAll(loadedSigns); // Neuen Cache füllen
-                plugin.getLogger().info("Successfully loaded " + signLocations.size() + " group info sign locations.");
-                // TODO Optional: Erste Aktualisierung aller Schilder nach dem Laden anstoßen
-                 // updateAllSigns(); // Wird vom Task in PlayLegendTask übernommen
+                worlds.clear(); // Alten Cache leeren
+                signCount = 0;
+                signsByTarget.clear();
+                signsByGroup.clear();
+                clearRenderQueue();
+                loadedSigns.forEach(this::indexSign); // Neuen Cache füllen
+                markAllDirty(); // Erste Anzeige der Schilder in geladenen Chunks
+                int chunks = 0;
+                int loadedChunks = 0;
+                for (WorldSigns world : worlds.values()) {
+                    chunks += world.byChunk.size();
+                    loadedChunks += world.loadedChunks.size();
+                }
+                plugin.getLogger().info("Successfully loaded " + signCount + " group info sign locations in "
+                        + chunks + " chunks (" + loadedChunks + " loaded).");
             } else {
                  plugin.getLogger().info("No sign locations found in database.");
             }
@@ -64,17 +156,17 @@ public class SignManager {
      * Könnte nützlich sein, falls In-Memory-Änderungen möglich wären..
      */
     public void saveSigns() {
-        if (!plugin.getConfigManager().isSignsEnabled() || signLocations.isEmpty()) return;
+        if (!plugin.getConfigManager().isSignsEnabled() || signCount == 0) return;
 
-        plugin.getLogger().info("Saving " + signLocations.size() + " sign locations (triggered by disable - individual add/remove handle live saves)...");
+        plugin.getLogger().info("Saving " + signCount + " sign locations (triggered by disable - individual add/remove handle live saves)...");
         // Normalerweise reicht das Speichern bei Add/Remove. Falls ein vollständiges Speichern
         // auf onDisable gewünscht ist, müsste man hier durch die Map iterieren und saveSignLocationAsync aufrufen.
         // Aber könnte bei vielen Schildern dauern. Ein Beispiel:
         /*
-        signLocations.forEach((loc, uuid) -> {
-            plugin.getDatabaseManager().saveSignLocationAsync(loc, uuid)
+        forEachSign(sign -> {
+            plugin.getDatabaseManager().saveSignLocationAsync(sign.location, sign.target)
                 .exceptionally(throwable -> {
-                    plugin.getLogger().log(Level.SEVERE, "Failed to save sign location on disable: " + loc, throwable);
+                    plugin.getLogger().log(Level.SEVERE, "Failed to save sign location on disable: " + sign.location, throwable);
                     return null;
                 });
         });
@@ -91,20 +183,24 @@ public class SignManager {
     public void addSign(Location location, UUID targetPlayerUUID) {
          if (!plugin.getConfigManager().isSignsEnabled()) return; // Nichts tun, wenn deaktiviert
 
-        // Füge zum Cache hinzu
-        signLocations.put(location, targetPlayerUUID);
+        // Füge zum Cache hinzu (ein bereits registriertes Schild an derselben Stelle wurde neu beschriftet)
+        InfoSign previous = find(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        if (previous != null) {
+            unindexSign(previous);
+        }
+        InfoSign infoSign = indexSign(location, targetPlayerUUID);
 
         // Speichere asynchron in der Datenbank
         plugin.getDatabaseManager().saveSignLocationAsync(location, targetPlayerUUID)
                 .exceptionally(throwable -> {
                      plugin.getLogger().log(Level.SEVERE, "Failed to save new sign location to DB: " + location, throwable);
                      // TO DO Optional: ggf Aus Cache wieder entfernen, wenn DB-Speichern fehlschlägt?
-                     // signLocations.remove(location);
+                     // unindexSign(infoSign);
                      return null; // Fehler behandeln
                  });
 
-        // Aktualisiere das Schild sofort mit den aktuellen Daten (im Hauptthread)
-        updateSign(location, targetPlayerUUID);
+        // Text im nächsten Tick über die Render-Queue setzen (nach dem SignChangeEvent, das die Zeilen selbst setzt)
+        markDirty(List.of(infoSign));
         plugin.getLogger().info("Added info sign at " + location + " tracking player " + targetPlayerUUID);
     }
 
@@ -114,30 +210,56 @@ public class SignManager {
      */
     public void removeSign(Location location) {
         if (!plugin.getConfigManager().isSignsEnabled()) return; // Nichts tun, wenn deaktiviert
+        InfoSign infoSign = find(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        if (infoSign != null) {
+            removeSign(infoSign);
+        }
+    }
 
-        // Entferne aus Cache, wenn vorhanden
-        if (signLocations.containsKey(location)) {
-            signLocations.remove(location);
-
-            // Lösche asynchron aus der Datenbank
-            plugin.getDatabaseManager().deleteSignLocationAsync(location)
-                    .exceptionally(throwable -> {
-                        plugin.getLogger().log(Level.SEVERE, "Failed to delete sign location from DB: " + location, throwable);
-                        // Fehler beim Löschen aus DB ist ärgerlich, aber Cache ist schon sauber.
-                        return null;
-                    });
-            plugin.getLogger().info("Removed info sign at " + location);
+    /**
+     * Entfernt das Info-Schild an einem Block (aus DB und Cache), z.B. beim Abbauen.
+     * @param block Der Block.
+     */
+    public void removeSign(Block block) {
+        if (!plugin.getConfigManager().isSignsEnabled()) return; // Nichts tun, wenn deaktiviert
+        InfoSign infoSign = find(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        if (infoSign != null) {
+            removeSign(infoSign);
         }
     }
 
+    private void removeSign(InfoSign infoSign) {
+        // Entferne aus Cache
+        unindexSign(infoSign);
+        Location location = infoSign.location;
+
+        // Lösche asynchron aus der Datenbank
+        plugin.getDatabaseManager().deleteSignLocationAsync(location)
+                .exceptionally(throwable -> {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to delete sign location from DB: " + location, throwable);
+                    // Fehler beim Löschen aus DB ist ärgerlich, aber Cache ist schon sauber.
+                    return null;
+                });
+        plugin.getLogger().info("Removed info sign at " + location);
+    }
+
     /**
      * Prüft, ob sich am gegebenen Standort ein registriertes Info-Schild befindet.
      * @param location Der Standort.
      * @return true, wenn es ein Info-Schild ist, sonst false.
      */
     public boolean isGroupInfoSign(Location location) {
-        // Prüfe nur, ob die Location im Cache ist
-        return signLocations.containsKey(location);
+        return find(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ()) != null;
+    }
+
+    /**
+     * Prüft, ob an einem Block ein registriertes Info-Schild steht. Nur ein Lookup über die gepackten
+     * Koordinaten - ohne Location- oder BlockState-Objekt, daher auch für jedes BlockBreakEvent geeignet.
+     * @param block Der Block.
+     * @return true, wenn es ein Info-Schild ist, sonst false.
+     */
+    public boolean isGroupInfoSign(Block block) {
+        return find(block.getWorld(), block.getX(), block.getY(), block.getZ()) != null;
     }
 
     /**
@@ -146,145 +268,495 @@ public class SignManager {
      * @return Die UUID des Zielspielers oder null, wenn kein Info-Schild an diesem Ort.
      */
     public UUID getSignTargetPlayerUUID(Location location) {
-        return signLocations.get(location);
+        InfoSign infoSign = find(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        return infoSign != null ? infoSign.target : null;
+    }
+
+    private InfoSign find(World world, int x, int y, int z) {
+        if (world == null || signCount == 0) return null;
+        WorldSigns signs = worlds.get(world.getName());
+        return signs != null ? signs.byBlock.get(LongObjectMap.packBlock(x, y, z)) : null;
+    }
+
+    private void forEachSign(Consumer<InfoSign> action) {
+        for (WorldSigns world : worlds.values()) {
+            world.byBlock.forEachValue(action);
+        }
+    }
+
+    // --- Indizes (nur im Hauptthread) ---
+
+    /**
+     * Nimmt ein Schild in alle Indizes auf. Ob der Chunk geladen ist, wird dabei einmal pro Chunk geprüft.
+     */
+    private InfoSign indexSign(Location location, UUID target) {
+        InfoSign infoSign = new InfoSign(location, target);
+        WorldSigns world = worlds.computeIfAbsent(location.getWorld().getName(), k -> new WorldSigns());
+        world.byBlock.put(infoSign.blockKey, infoSign);
+        signCount++;
+        signsByTarget.computeIfAbsent(target, k -> new HashSet<>()).add(infoSign);
+        Set<InfoSign> chunkSigns = world.byChunk.get(infoSign.chunkKey);
+        if (chunkSigns == null) {
+            chunkSigns = new HashSet<>();
+            world.byChunk.put(infoSign.chunkKey, chunkSigns);
+            if (location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+                world.loadedChunks.put(infoSign.chunkKey, chunkSigns);
+            }
+        }
+        chunkSigns.add(infoSign);
+        return infoSign;
+    }
+
+    private void unindexSign(InfoSign infoSign) {
+        WorldSigns world = worlds.get(infoSign.location.getWorld().getName());
+        if (world == null || world.byBlock.get(infoSign.blockKey) != infoSign) return;
+        world.byBlock.remove(infoSign.blockKey);
+        signCount--;
+        removeFromIndex(signsByTarget, infoSign.target, infoSign);
+        if (infoSign.renderedGroup != null) {
+            removeFromIndex(signsByGroup, infoSign.renderedGroup, infoSign);
+        }
+        dirtySigns.remove(infoSign);
+        countdownSigns.remove(infoSign);
+        infoSign.renderVersion++; // Laufende Berechnungen verwerfen
+        Set<InfoSign> chunkSigns = world.byChunk.get(infoSign.chunkKey);
+        if (chunkSigns == null) return;
+        chunkSigns.remove(infoSign);
+        if (chunkSigns.isEmpty()) {
+            world.byChunk.remove(infoSign.chunkKey);
+            world.loadedChunks.remove(infoSign.chunkKey);
+        }
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<InfoSign>> index, K key, InfoSign infoSign) {
+        Set<InfoSign> signs = index.get(key);
+        if (signs != null && signs.remove(infoSign) && signs.isEmpty()) {
+            index.remove(key);
+        }
     }
 
     /**
-     * Aktualisiert den Text eines einzelnen Info-Schilds.
-     * Holt die notwendigen Spieler- und Gruppendaten.
-     * Muss im Bukkit-Hauptthread ausgeführt werden, da es die Welt verändert.
-     * @param location Der Standort des Schilds.
-     * @param targetPlayerUUID Die UUID des anzuzeigenden Spielers.
+     * Merkt sich, welche Gruppe ein Schild gerade anzeigt (für {@link #markGroupDirty(Group)}).
      */
-    public void updateSign(Location location, UUID targetPlayerUUID) {
-        // Stelle sicher, dass wir im Hauptthread sind, da wir Block-States ändern
-        if (!Bukkit.isPrimaryThread()) {
-            Bukkit.getScheduler().runTask(plugin, () -> updateSign(location, targetPlayerUUID));
-            return;
+    private void trackRenderedGroup(InfoSign infoSign, Group group) {
+        String previous = infoSign.renderedGroup;
+        if (group.getKey().equals(previous)) return;
+        if (previous != null) {
+            removeFromIndex(signsByGroup, previous, infoSign);
         }
-        if (!plugin.getConfigManager().isSignsEnabled()) return; // Prüfe erneut, falls config geändert wurde
+        infoSign.renderedGroup = group.getKey();
+        signsByGroup.computeIfAbsent(group.getKey(), k -> new HashSet<>()).add(infoSign);
+    }
 
-        // Prüfe, ob die Welt geladen ist
-        if (location.getWorld() == null || !location.isWorldLoaded()) {
-            plugin.getLogger().fine("Skipping sign update, world not loaded: " + location);
-            return;
+    /**
+     * Wird beim Laden eines Chunks aufgerufen (SignListener). Enthält der Chunk Info-Schilder, werden sie aktiv
+     * und einmal aktualisiert - im nächsten Tick, damit das Event selbst keine Block-States ändert.
+     * @param chunk Der geladene Chunk.
+     */
+    public void handleChunkLoad(Chunk chunk) {
+        if (signCount == 0) return;
+        WorldSigns world = worlds.get(chunk.getWorld().getName());
+        if (world == null) return;
+        long key = LongObjectMap.packChunk(chunk.getX(), chunk.getZ());
+        Set<InfoSign> signs = world.byChunk.get(key);
+        if (signs == null) return;
+        world.loadedChunks.put(key, signs);
+        for (InfoSign infoSign : signs) {
+            infoSign.appliedLines = null; // Block-State wurde neu geladen, Text einmal sicher schreiben
         }
+        markDirty(signs);
+    }
 
-        if (!location.isChunkLoaded()) {
-             plugin.getLogger().fine("Skipping sign update, chunk not loaded: " + location);
-            return; // Nicht aktualisieren, wenn Chunk nicht geladen ist
+    /**
+     * Wird beim Entladen eines Chunks aufgerufen (SignListener). Seine Schilder werden nicht mehr aktualisiert.
+     * @param chunk Der entladene Chunk.
+     */
+    public void handleChunkUnload(Chunk chunk) {
+        if (signCount == 0) return;
+        WorldSigns world = worlds.get(chunk.getWorld().getName());
+        if (world == null || world.loadedChunks.isEmpty()) return;
+        world.loadedChunks.remove(LongObjectMap.packChunk(chunk.getX(), chunk.getZ()));
+    }
+
+    /**
+     * Wird beim Entladen einer Welt aufgerufen (SignListener), da dabei nicht für jeden Chunk ein Event kommt.
+     * @param worldName Der Name der Welt.
+     */
+    public void handleWorldUnload(String worldName) {
+        WorldSigns world = worlds.get(worldName);
+        if (world != null) {
+            world.loadedChunks.clear();
         }
+    }
 
-        Block block = location.getBlock();
-        // Prüfe, ob es immer noch ein Schild ist UND ob es noch in unserem Cache ist
-        if (signLocations.containsKey(location) && block.getState() instanceof Sign) {
-            Sign sign = (Sign) block.getState();
-            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(targetPlayerUUID); // Geht auch für offline Spieler
+    // --- Ereignisgesteuerte Aktualisierung (nur im Hauptthread) ---
+
+    /**
+     * Reiht Schilder mit Vorrang in die Render-Queue ein. Schilder in ungeladenen Chunks werden beim Abarbeiten
+     * übersprungen, sie werden ohnehin beim Laden ihres Chunks aktualisiert.
+     */
+    private void markDirty(Collection<InfoSign> signs) {
+        if (signs == null || signs.isEmpty()) return;
+        for (InfoSign infoSign : signs) {
+            countdownSigns.remove(infoSign);
+            dirtySigns.add(infoSign);
+        }
+        startRenderTask();
+    }
+
+    /**
+     * Markiert die Schilder, die einen Spieler anzeigen (Gruppenwechsel, Ablauf, Join, Quit).
+     * @param uuid Die UUID des Spielers.
+     */
+    public void markPlayerDirty(UUID uuid) {
+        markDirty(signsByTarget.get(uuid));
+    }
 
-            // --- Daten für das Schild holen ---
-            Player onlinePlayer = offlinePlayer.isOnline() ? offlinePlayer.getPlayer() : null;
-            Group group;
-            PlayerGroupInfo info = null;
+    /**
+     * Markiert die Schilder, die zuletzt eine bestimmte Gruppe angezeigt haben (z.B. nach einer Prefix-Änderung).
+     * @param group Die geänderte Gruppe.
+     */
+    public void markGroupDirty(Group group) {
+        markDirty(signsByGroup.get(group.getKey()));
+    }
 
-            if (onlinePlayer != null) {
-                group = plugin.getPlayerDataManager().getPlayerGroup(targetPlayerUUID);
-                info = plugin.getPlayerDataManager().getPlayerGroupInfo(targetPlayerUUID);
-            } else {
-                // TODO Spieler ist offline -> Versuche, letzte Daten aus DB zu holen (komplexer)
-                // dies erfordert eine zusätzliche Methode im DatabaseManager / PlayerDataManager,
-                // die getPlayerGroupInfoAsync auch für Offline-Spieler aufruft..
-                // Aber jetzt für dieses Beispiel zeigen wir vereinfacht den Namen und "Offline" oder Default-Gruppe an.
-                group = plugin.getGroupManager().getDefaultGroup(); // Zeige Default-Gruppe für Offline-Spieler?
-                // TODO: Implementiere ggf. eine Methode, um letzte bekannte Gruppe aus DB zu laden.
-                // PlayerGroupInfo offlineInfo = syncGetOfflinePlayerData(targetPlayerUUID); // Blockierender Aufruf wäre jedoch schlecht
+    /**
+     * Markiert alle Schilder in geladenen Chunks (z.B. nach dem Laden der Schilder oder Gruppen).
+     */
+    public void markAllDirty() {
+        for (WorldSigns world : worlds.values()) {
+            world.loadedChunks.forEachValue(this::markDirty);
+        }
+    }
+
+    /**
+     * Wird vom PlayerDataManager aufgerufen, wenn ein Spieler geladen/entladen wird oder seine Gruppe wechselt.
+     * Markiert seine Schilder und - falls die Schilder Online-Zahlen anzeigen - die davon betroffenen Schilder.
+     * @param uuid Die UUID des Spielers.
+     * @param oldGroup Die bisherige Gruppe oder null beim Join.
+     * @param newGroup Die neue Gruppe oder null beim Quit.
+     */
+    public void handleMembershipChange(UUID uuid, Group oldGroup, Group newGroup) {
+        if (signCount == 0) return;
+        markPlayerDirty(uuid);
+        if ((oldGroup == null || newGroup == null) && signsUse(PlaceholderTemplate.Placeholder.ONLINE_PLAYERS)) {
+            markAllDirty(); // Gesamtzahl der Spieler hat sich geändert
+        } else if (signsUse(PlaceholderTemplate.Placeholder.GROUP_ONLINE) && !Objects.equals(oldGroup, newGroup)) {
+            if (oldGroup != null) markGroupDirty(oldGroup);
+            if (newGroup != null) markGroupDirty(newGroup);
+        }
+    }
+
+    private boolean signsUse(PlaceholderTemplate.Placeholder placeholder) {
+        for (int line = 1; line <= 4; line++) {
+            if (plugin.getConfigManager().getSignLineTemplate(line).uses(placeholder)) return true;
+        }
+        return false;
+    }
+
+    // --- Render-Queue (nur im Hauptthread, außer computeLines) ---
+
+    private void startRenderTask() {
+        peakBacklog = Math.max(peakBacklog, getBacklog());
+        if (renderTask == null) {
+            renderTask = Bukkit.getScheduler().runTaskTimer(plugin, this::renderTick, 1L, 1L);
+        }
+    }
+
+    private void clearRenderQueue() {
+        dirtySigns.clear();
+        countdownSigns.clear();
+        readyDirty.clear();
+        readyCountdown.clear();
+        if (renderTask != null) {
+            renderTask.cancel();
+            renderTask = null;
+        }
+    }
+
+    /**
+     * Ein Tick der Render-Queue: Schickt neu markierte Schilder zur asynchronen Berechnung und wendet fertige
+     * Ergebnisse an, bis das Zeitbudget (signs.render-budget-ms) verbraucht ist - mindestens eines pro Tick.
+     * Der Task läuft nur, solange etwas zu tun ist; eintreffende Ergebnisse starten ihn wieder.
+     */
+    private void renderTick() {
+        if (!plugin.getConfigManager().isSignsEnabled()) {
+            clearRenderQueue();
+            return;
+        }
+        dispatch(dirtySigns, readyDirty);
+        dispatch(countdownSigns, readyCountdown);
+
+        long budgetNanos = (long) (Math.max(0.1, plugin.getConfigManager().getSignRenderBudgetMillis()) * 1_000_000L);
+        long start = System.nanoTime();
+        long elapsed = 0;
+        List<InfoSign> broken = null;
+        while (elapsed < budgetNanos) {
+            RenderResult result = readyDirty.pollFirst();
+            if (result == null) result = readyCountdown.pollFirst();
+            if (result == null) break;
+            if (!applyResult(result)) {
+                if (broken == null) broken = new ArrayList<>();
+                broken.add(result.sign());
             }
+            elapsed = System.nanoTime() - start;
+        }
+        removeBroken(broken);
+
+        ticks++;
+        totalNanos += elapsed;
+        maxTickNanos = Math.max(maxTickNanos, elapsed);
+        if (getBacklog() == 0 && renderTask != null) {
+            renderTask.cancel();
+            renderTask = null;
+        }
+    }
 
-            // Sicherheitscheck: Haben wir eine Gruppe? (Sollte Default liefern, wenn alles andere fehlschlägt)
-            if (group == null) {
-                 plugin.getLogger().severe("CRITICAL: Cannot update sign at " + location + ", group is null (even default)!");
-                 // Setze Fehlertext auf Schild
-                 sign.setLine(0, ChatColor.RED + "Error");
-                 sign.setLine(1, ChatColor.RED + "Group Data");
-                 sign.setLine(2, ChatColor.RED + "Unavailable");
-                 sign.setLine(3, "");
-                 sign.update(true); // force=true, um Caching zu umgehen
-                 return;
+    /**
+     * Vergibt für alle aktiven Schilder einer Warteschlange eine neue Version und berechnet ihren Text gebündelt
+     * in einem asynchronen Task. Die Ergebnisse landen im nächsten Tick in der passenden Ergebnis-Queue.
+     */
+    private void dispatch(Set<InfoSign> pending, ArrayDeque<RenderResult> ready) {
+        if (pending.isEmpty()) return;
+        boolean packetMode = plugin.getConfigManager().isSignPacketRenderMode();
+        List<RenderJob> jobs = new ArrayList<>(pending.size());
+        for (InfoSign infoSign : pending) {
+            if (!isActive(infoSign)) continue;
+            if (packetMode && !hasViewer(infoSign)) {
+                // Niemand sieht das Schild: nicht berechnen, beim Betreten der Sichtweite wird es neu markiert
+                infoSign.appliedLines = null;
+                infoSign.renderVersion++; // Laufende Berechnungen verwerfen
+                skippedUnseen++;
+                continue;
+            }
+            jobs.add(new RenderJob(infoSign, infoSign.target, ++infoSign.renderVersion));
+        }
+        pending.clear();
+        if (jobs.isEmpty()) return;
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<RenderResult> results = new ArrayList<>(jobs.size());
+            for (RenderJob job : jobs) {
+                try {
+                    results.add(computeLines(job));
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.WARNING, "Error computing sign text at " + job.sign().location, e);
+                }
             }
+            if (!plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                computed += results.size();
+                ready.addAll(results);
+                startRenderTask();
+            });
+        });
+    }
+
+    /**
+     * Berechnet den Text eines Schilds. Läuft asynchron und liest nur threadsichere Daten
+     * (Sessions, Gruppen-Snapshot, vorkompilierte Templates) - kein Block- oder Welt-Zugriff.
+     */
+    private RenderResult computeLines(RenderJob job) {
+        UUID targetPlayerUUID = job.target();
+        Player onlinePlayer = Bukkit.getPlayer(targetPlayerUUID);
+        Group group;
+        String playerName;
+
+        if (onlinePlayer != null) {
+            playerName = onlinePlayer.getName();
+            group = plugin.getPlayerDataManager().getPlayerGroup(targetPlayerUUID);
+        } else {
+            // TODO Spieler ist offline -> Versuche, letzte Daten aus DB zu holen (komplexer)
+            // Aber jetzt für dieses Beispiel zeigen wir vereinfacht den Namen und "Offline" oder Default-Gruppe an.
+            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(targetPlayerUUID); // Geht auch für offline Spieler
+            playerName = offlinePlayer.getName() != null ? offlinePlayer.getName() : "Unknown";
+            group = plugin.getGroupManager().getDefaultGroup(); // Zeige Default-Gruppe für Offline-Spieler
+        }
+
+        // Sicherheitscheck: Haben wir eine Gruppe? (Sollte Default liefern, wenn alles andere fehlschlägt)
+        if (group == null) {
+            plugin.getLogger().severe("CRITICAL: Cannot update sign at " + job.sign().location + ", group is null (even default)!");
+            String[] error = {ChatColor.RED + "Error", ChatColor.RED + "Group Data", ChatColor.RED + "Unavailable", ""};
+            return new RenderResult(job.sign(), job.version(), error, null);
+        }
 
-            // --- Schild-Text formatieren ---
-            String playerName = offlinePlayer.getName() != null ? offlinePlayer.getName() : "Unknown"; // Name holen
+        String[] lines = new String[4];
+        for (int i = 0; i < 4; i++) {
+            lines[i] = plugin.getPlayerDataManager().formatTemplate(plugin.getConfigManager().getSignLineTemplate(i + 1), playerName, onlinePlayer, group);
+        }
+        if (onlinePlayer == null) {
+            lines[3] = lines[3].replace("Permanent", "Offline").replaceFirst("Expires:.*", ChatColor.GRAY + "Offline");
+        }
+        return new RenderResult(job.sign(), job.version(), lines, group);
+    }
 
-            String line1 = plugin.getPlayerDataManager().formatString(plugin.getConfigManager().getSignLine(1), onlinePlayer, group);
-            String line2 = plugin.getPlayerDataManager().formatString(plugin.getConfigManager().getSignLine(2), onlinePlayer, group);
-            String line3 = plugin.getPlayerDataManager().formatString(plugin.getConfigManager().getSignLine(3), onlinePlayer, group);
-            String line4 = plugin.getPlayerDataManager().formatString(plugin.getConfigManager().getSignLine(4), onlinePlayer, group);
+    /**
+     * Wendet ein berechnetes Ergebnis an. Überholte Ergebnisse und Schilder in inzwischen entladenen Chunks
+     * werden verworfen; der Block wird nur angefasst, wenn sich der Text gegenüber dem zuletzt geschriebenen ändert.
+     * @return false, wenn an der Position kein Schild mehr steht (der Aufrufer entfernt es dann), sonst true.
+     */
+    private boolean applyResult(RenderResult result) {
+        InfoSign infoSign = result.sign();
+        if (result.version() != infoSign.renderVersion) {
+            stale++;
+            return true;
+        }
+        if (!isActive(infoSign)) return true;
+        if (result.group() != null) {
+            trackRenderedGroup(infoSign, result.group());
+        }
+        if (Arrays.equals(infoSign.appliedLines, result.lines())) {
+            unchanged++;
+            return true;
+        }
+        if (plugin.getConfigManager().isSignPacketRenderMode()) {
+            // Block-State bleibt unberührt, nur Spieler in Sichtweite bekommen den Text
+            infoSign.appliedLines = result.lines();
+            forEachViewer(infoSign, viewer -> sendLines(viewer, infoSign));
+            applied++;
+            return true;
+        }
 
-            if (onlinePlayer == null) {
-                line1 = line1.replace("%player%", playerName);
-                line2 = line2.replace("%player%", playerName);
-                line3 = line3.replace("%player%", playerName);
-                line4 = line4.replace("%player%", playerName);
-                line4 = line4.replace("Permanent", "Offline").replaceFirst("Expires:.*", ChatColor.GRAY + "Offline");
+        Block block = infoSign.location.getBlock();
+        // Prüfe, ob es immer noch ein Schild ist
+        if (!(block.getState() instanceof Sign sign)) {
+            return false;
+        }
+        String[] lines = result.lines();
+        // Prüfe, ob sich der Text auf dem Block geändert hat, um unnötige Updates zu vermeiden
+        boolean changed = false;
+        for (int i = 0; i < 4; i++) {
+            if (!sign.getLine(i).equals(lines[i])) {
+                sign.setLine(i, lines[i]);
+                changed = true;
             }
+        }
+        if (changed) {
+            sign.update(true); // force=true, um Caching zu umgehen
+            applied++;
+        } else {
+            unchanged++;
+        }
+        infoSign.appliedLines = lines;
+        return true;
+    }
+
+    // --- Paket-Modus (signs.render-mode: packet) ---
 
-            // --- Schild aktualisieren ---
-            // Prüfe, ob sich der Text geändert hat, um unnötige Updates zu vermeiden (optional)
-            boolean changed = !sign.getLine(0).equals(line1) || !sign.getLine(1).equals(line2) ||
-                              !sign.getLine(2).equals(line3) || !sign.getLine(3).equals(line4);
-
-            if (changed) {
-                sign.setLine(0, line1);
-                sign.setLine(1, line2);
-                sign.setLine(2, line3);
-                sign.setLine(3, line4);
-                sign.update(true);
+    /**
+     * Wird aufgerufen, wenn ein Spieler einen Chunk erhält (SignListener, PlayerChunkLoadEvent), also ein Schild
+     * in seine Sichtweite kommt. Im Paket-Modus bekommt er den aktuellen Text der Schilder des Chunks; Schilder
+     * ohne aktuellen Text (bisher ungesehen) werden zur Berechnung markiert.
+     * @param player Der Spieler.
+     * @param chunk Der gesendete Chunk.
+     */
+    public void handleViewerChunkLoad(Player player, Chunk chunk) {
+        if (signCount == 0 || !plugin.getConfigManager().isSignPacketRenderMode()) return;
+        WorldSigns world = worlds.get(chunk.getWorld().getName());
+        if (world == null) return;
+        Set<InfoSign> signs = world.loadedChunks.get(LongObjectMap.packChunk(chunk.getX(), chunk.getZ()));
+        if (signs == null) return;
+        List<InfoSign> unrendered = null;
+        for (InfoSign infoSign : signs) {
+            if (infoSign.appliedLines != null) {
+                sendLines(player, infoSign);
+            } else {
+                if (unrendered == null) unrendered = new ArrayList<>();
+                unrendered.add(infoSign);
             }
+        }
+        markDirty(unrendered);
+    }
 
-        } else {
-            // Der Block ist kein Schild mehr oder wurde aus dem Cache entfernt (z.B. durch Zerstören)
-            if (signLocations.containsKey(location)) {
-                 plugin.getLogger().info("Removing broken or unregistered sign location during update: " + location);
-                 removeSign(location); // Bereinige DB und Cache
+    private void sendLines(Player viewer, InfoSign infoSign) {
+        viewer.sendSignChange(infoSign.location, infoSign.appliedLines);
+        packetsSent++;
+    }
+
+    /**
+     * Ruft die Aktion für jeden Spieler auf, in dessen Sichtweite (View-Distance der Welt, in Chunks) das Schild liegt.
+     */
+    private void forEachViewer(InfoSign infoSign, Consumer<Player> action) {
+        World world = infoSign.location.getWorld();
+        if (world == null) return;
+        int viewDistance = world.getViewDistance();
+        int chunkX = infoSign.location.getBlockX() >> 4;
+        int chunkZ = infoSign.location.getBlockZ() >> 4;
+        for (Player player : world.getPlayers()) {
+            Location location = player.getLocation();
+            if (Math.abs((location.getBlockX() >> 4) - chunkX) <= viewDistance
+                    && Math.abs((location.getBlockZ() >> 4) - chunkZ) <= viewDistance) {
+                action.accept(player);
             }
         }
     }
 
+    private boolean hasViewer(InfoSign infoSign) {
+        boolean[] seen = {false};
+        forEachViewer(infoSign, player -> seen[0] = true);
+        return seen[0];
+    }
+
+    /**
+     * @return true, wenn das Schild noch registriert ist und sein Chunk geladen ist.
+     */
+    private boolean isActive(InfoSign infoSign) {
+        World world = infoSign.location.getWorld();
+        if (world == null) return false;
+        WorldSigns signs = worlds.get(world.getName());
+        return signs != null && signs.byBlock.get(infoSign.blockKey) == infoSign
+                && signs.loadedChunks.containsKey(infoSign.chunkKey);
+    }
+
     /**
-     * Aktualisiert alle registrierten Info-Schilder.
-     * Wird vom periodischen Task in PlayLegendTask aufgerufen.
-     * Führt updateSign für jedes Schild aus (welches dann im Hauptthread läuft).
+     * Aktualisiert die Schilder mit Countdown (%expiry_time%) von online Spielern mit temporärer Gruppe.
+     * Wird vom periodischen Task in PlayLegendTask im Hauptthread aufgerufen und reiht die Schilder mit
+     * niedriger Priorität ein. Alle anderen Änderungen (Gruppenwechsel, Ablauf, Prefix, Join/Quit, Chunk-Load)
+     * markieren ihre Schilder selbst - ohne Countdown-Schilder kostet der Task also praktisch nichts.
      */
-    public void updateAllSigns() {
-        if (!plugin.getConfigManager().isSignsEnabled() || signLocations.isEmpty()) return;
+    public void updateCountdownSigns() {
+        if (!plugin.getConfigManager().isSignsEnabled() || signsByTarget.isEmpty()
+                || !signsUse(PlaceholderTemplate.Placeholder.EXPIRY_TIME)) return;
+
+        boolean queued = false;
+        for (Map.Entry<UUID, Set<InfoSign>> entry : signsByTarget.entrySet()) {
+            PlayerGroupInfo info = plugin.getPlayerDataManager().getPlayerGroupInfo(entry.getKey());
+            if (info == null || info.isPermanent()) continue;
+            for (InfoSign infoSign : entry.getValue()) {
+                if (!dirtySigns.contains(infoSign)) {
+                    countdownSigns.add(infoSign);
+                    queued = true;
+                }
+            }
+        }
+        if (queued) {
+            startRenderTask();
+        }
+    }
 
-        // Iteriere sicher über eine Kopie der Einträge, falls die Map währenddessen geändert wird
-         new HashSet<>(signLocations.entrySet()).forEach(entry -> {
-             updateSign(entry.getKey(), entry.getValue());
-         });
+    // --- Metriken ---
+
+    /** @return Anzahl der Schilder, die auf Berechnung oder Anwendung warten. */
+    public int getBacklog() {
+        return dirtySigns.size() + countdownSigns.size() + readyDirty.size() + readyCountdown.size();
     }
 
     /**
-     * Aktualisiert alle Schilder, die Spieler einer bestimmten Gruppe anzeigen,
-     * nachdem sich z.B. der Prefix dieser Gruppe geändert hat.
-     * @param changedGroup Die geänderte Gruppe.
+     * Fasst die Metriken der Render-Queue in einer Zeile zusammen (für /group stats).
+     * @return Lesbare Zusammenfassung.
      */
-    public void updateSignsForGroup(Group changedGroup) {
-         if (!plugin.getConfigManager().isSignsEnabled() || signLocations.isEmpty()) return;
-
-         String lowerCaseGroupName = changedGroup.getName().toLowerCase();
-
-         signLocations.forEach((location, uuid) -> {
-             // Dies erfordert, die Gruppe des Spielers zu kennen (Cache für online, ggf. DB für offline)
-             Player onlinePlayer = Bukkit.getPlayer(uuid);
-             if (onlinePlayer != null && onlinePlayer.isOnline()) {
-                 PlayerGroupInfo info = plugin.getPlayerDataManager().getPlayerGroupInfo(uuid);
-                 if (info != null && info.getGroupName().equalsIgnoreCase(lowerCaseGroupName)) {
-                     updateSign(location, uuid); // Update das Schild
-                 }
-             } else {
-                 // Spieler ist offline - Prüfung ist schwieriger
-                 // TODO: Implementiere ggf. DB-Lookup für Offline-Spieler oder ignoriere Offline-Spieler bei diesem Trigger
-             }
-         });
-    }
-}
\ No newline at end of file
+    public String getStatsSummary() {
+        return String.format("Signs (%s mode): %d registered, backlog=%d (peak %d), computed=%d, applied=%d, unchanged=%d, stale=%d, packets=%d, skipped unseen=%d, ticks=%d, ms/tick avg/max=%.2f/%.2f",
+                plugin.getConfigManager().isSignPacketRenderMode() ? "packet" : "block",
+                signCount, getBacklog(), peakBacklog, computed, applied, unchanged, stale, packetsSent, skippedUnseen, ticks,
+                ticks == 0 ? 0.0 : totalNanos / (double) ticks / 1_000_000.0, maxTickNanos / 1_000_000.0);
+    }
+
+    private void removeBroken(List<InfoSign> broken) {
+        if (broken == null) return;
+        for (InfoSign infoSign : broken) {
+            plugin.getLogger().info("Removing broken or unregistered sign location during update: " + infoSign.location);
+            removeSign(infoSign); // Bereinige DB und Cache
+        }
+    }
+}
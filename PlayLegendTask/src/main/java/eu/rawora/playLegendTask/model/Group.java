@@ -1,12 +1,84 @@
 package eu.rawora.playLegendTask.model;
 
+import eu.rawora.playLegendTask.util.WorldKeys;
 import org.bukkit.ChatColor;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
-public class Group {
+/**
+ * Unveränderliche Gruppe. Alle Felder sind final, Änderungen (Prefix, Eltern-Gruppe, Einträge, neu berechnete
+ * Werte) erzeugen über die with-Methoden ein neues Objekt, das der GroupManager in einem neuen
+ * {@link GroupSnapshot} veröffentlicht. Dadurch kann jede Gruppe ohne Synchronisation aus beliebigen Threads
+ * gelesen werden (z.B. im asynchronen Chat) und liefert immer einen in sich stimmigen Stand.
+ */
+public final class Group {
+    /** ID für Gruppen, denen (noch) keine ID zugewiesen wurde. Vergebene IDs beginnen bei 1. */
+    public static final int NO_ID = 0;
+
+    private final int id; // Stabile, vom GroupManager vergebene ID (Spalte id in der Tabelle groups)
     private final String name;
-    private String prefix;
+    private final String key; // Kleingeschriebener Name, einmal berechnet (Cache-Schlüssel, equals/hashCode)
+    private final String prefix;
+    private final String parentName; // Name der Eltern-Gruppe oder null
+    // Rohe Permission-Einträge wie in der DB (normalisiert, z.B. "a.b.*" oder "-a.b.c"), nicht modifizierbar
+    private final Set<String> permissions;
+    // Vom GroupManager vorkompilierte, flache Permissions (Node -> Wert), wird nur kopiert
+    private final Map<String, Boolean> compiledPermissions;
+    // Pro Welt (kleingeschrieben) vorkompilierte eigene Permissions: globale Einträge, überschrieben von den Welt-Einträgen
+    private final Map<String, Map<String, Boolean>> compiledWorldPermissions;
+    // Vom GroupManager gepflegte, vererbte Werte (eigene Werte überschreiben die der Eltern-Gruppen)
+    private final Map<String, Boolean> effectivePermissions;
+    // Effektive Werte pro Welt, nur für Welten mit eigenen oder geerbten Welt-Einträgen (sonst gilt effectivePermissions)
+    private final Map<String, Map<String, Boolean>> effectiveWorldPermissions;
+    private final String effectivePrefix; // Farbig, bereits aufgelöst
+    // Effektive Permissions als Bitsets über die internierten IDs (PermissionIdRegistry), global und - für dieselben
+    // Welten wie effectiveWorldPermissions - pro Welt
+    private final PermissionBits permissionBits;
+    private final Map<String, PermissionBits> worldPermissionBits;
+
+    /**
+     * Erlaubte und explizit verbotene Permission-IDs einer Map von effektiven Permissions.
+     * Unveränderlich: Die übergebenen Bitsets werden kopiert, nach außen gibt es nur Lesezugriffe.
+     */
+    public static final class PermissionBits {
+        /** Leere Bitsets (keine Permissions). */
+        public static final PermissionBits EMPTY = new PermissionBits(new BitSet(), new BitSet());
+
+        private final long[] granted;
+        private final long[] denied;
+
+        public PermissionBits(BitSet granted, BitSet denied) {
+            this.granted = granted.toLongArray();
+            this.denied = denied.toLongArray();
+        }
+
+        /**
+         * @param permissionId Die ID aus der PermissionIdRegistry.
+         * @return true, wenn der Node erlaubt ist.
+         */
+        public boolean isGranted(int permissionId) {
+            return isSet(granted, permissionId);
+        }
+
+        /**
+         * @param permissionId Die ID aus der PermissionIdRegistry.
+         * @return true, wenn der Node explizit verboten ist.
+         */
+        public boolean isDenied(int permissionId) {
+            return isSet(denied, permissionId);
+        }
+
+        private static boolean isSet(long[] words, int id) {
+            int word = id >> 6; // Negative IDs ergeben ein negatives Wort
+            return word >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+        }
+    }
 
     /**
      * Konstruktor für eine Gruppe.
@@ -14,8 +86,144 @@ public class Group {
      * @param prefix Der Prefix der Gruppe (Farb-Codes mit '&' werden unterstützt).
      */
     public Group(String name, String prefix) {
-        this.name = Objects.requireNonNull(name, "Group name cannot be null");
-        this.prefix = prefix != null ? prefix : "";
+        this(name, prefix, null);
+    }
+
+    /**
+     * Konstruktor für eine Gruppe mit Eltern-Gruppe.
+     * @param name Der eindeutige Name der Gruppe (Groß-/Kleinschreibung wird oft ignoriert).
+     * @param prefix Der Prefix der Gruppe (Farb-Codes mit '&' werden unterstützt).
+     * @param parentName Der Name der Eltern-Gruppe oder null.
+     */
+    public Group(String name, String prefix, String parentName) {
+        this(NO_ID, name, prefix, parentName);
+    }
+
+    /**
+     * Konstruktor für eine Gruppe mit ID (z.B. beim Laden aus der DB).
+     * @param id Die stabile ID der Gruppe oder {@link #NO_ID}.
+     * @param name Der eindeutige Name der Gruppe (Groß-/Kleinschreibung wird oft ignoriert).
+     * @param prefix Der Prefix der Gruppe (Farb-Codes mit '&' werden unterstützt).
+     * @param parentName Der Name der Eltern-Gruppe oder null.
+     */
+    public Group(int id, String name, String prefix, String parentName) {
+        this(id, Objects.requireNonNull(name, "Group name cannot be null"), name.toLowerCase(),
+                prefix != null ? prefix : "", parentName, Set.of(),
+                Map.of(), Map.of(), Map.of(), Map.of(),
+                ChatColor.translateAlternateColorCodes('&', prefix != null ? prefix : ""),
+                PermissionBits.EMPTY, Map.of());
+    }
+
+    private Group(int id, String name, String key, String prefix, String parentName, Set<String> permissions,
+                  Map<String, Boolean> compiledPermissions, Map<String, Map<String, Boolean>> compiledWorldPermissions,
+                  Map<String, Boolean> effectivePermissions, Map<String, Map<String, Boolean>> effectiveWorldPermissions,
+                  String effectivePrefix, PermissionBits permissionBits, Map<String, PermissionBits> worldPermissionBits) {
+        this.id = id;
+        this.name = name;
+        this.key = key;
+        this.prefix = prefix;
+        this.parentName = parentName;
+        this.permissions = permissions;
+        this.compiledPermissions = compiledPermissions;
+        this.compiledWorldPermissions = compiledWorldPermissions;
+        this.effectivePermissions = effectivePermissions;
+        this.effectiveWorldPermissions = effectiveWorldPermissions;
+        this.effectivePrefix = effectivePrefix;
+        this.permissionBits = permissionBits;
+        this.worldPermissionBits = worldPermissionBits;
+    }
+
+    // --- Kopien mit geänderten Werten (nur durch den GroupManager) ---
+
+    /**
+     * @param id Die neue ID.
+     * @return Kopie mit der angegebenen ID.
+     */
+    public Group withId(int id) {
+        return new Group(id, name, key, prefix, parentName, permissions, compiledPermissions, compiledWorldPermissions,
+                effectivePermissions, effectiveWorldPermissions, effectivePrefix, permissionBits, worldPermissionBits);
+    }
+
+    /**
+     * Kopie mit neuem eigenem Prefix. Der effektive Prefix bleibt, bis der GroupManager ihn neu berechnet.
+     * @param prefix Der neue Prefix (mit '&' für Farben).
+     * @return Die Kopie.
+     */
+    public Group withPrefix(String prefix) {
+        return new Group(id, name, key, prefix != null ? prefix : "", parentName, permissions, compiledPermissions,
+                compiledWorldPermissions, effectivePermissions, effectiveWorldPermissions, effectivePrefix, permissionBits, worldPermissionBits);
+    }
+
+    /**
+     * Kopie mit neuer Eltern-Gruppe (der GroupManager verhindert Zyklen).
+     * @param parentName Name der Eltern-Gruppe oder null.
+     * @return Die Kopie.
+     */
+    public Group withParentName(String parentName) {
+        return new Group(id, name, key, prefix, parentName, permissions, compiledPermissions, compiledWorldPermissions,
+                effectivePermissions, effectiveWorldPermissions, effectivePrefix, permissionBits, worldPermissionBits);
+    }
+
+    /**
+     * Kopie mit ersetzten Permission-Einträgen (z.B. beim Laden aus der DB oder nach add/remove).
+     * @param entries Die normalisierten Einträge (Reihenfolge bleibt erhalten).
+     * @return Die Kopie.
+     */
+    public Group withPermissions(Collection<String> entries) {
+        Set<String> copy = Collections.unmodifiableSet(new LinkedHashSet<>(entries));
+        return new Group(id, name, key, prefix, parentName, copy, compiledPermissions, compiledWorldPermissions,
+                effectivePermissions, effectiveWorldPermissions, effectivePrefix, permissionBits, worldPermissionBits);
+    }
+
+    /**
+     * Kopie mit neu kompilierten eigenen Permissions.
+     * @param compiled Node -> Wert (nicht modifizierbar).
+     * @param compiledWorlds Welt -> (Node -> Wert) (nicht modifizierbar).
+     * @return Die Kopie.
+     */
+    public Group withCompiled(Map<String, Boolean> compiled, Map<String, Map<String, Boolean>> compiledWorlds) {
+        return new Group(id, name, key, prefix, parentName, permissions, compiled, compiledWorlds,
+                effectivePermissions, effectiveWorldPermissions, effectivePrefix, permissionBits, worldPermissionBits);
+    }
+
+    /**
+     * Kopie mit neu berechneten effektiven Permissions (inkl. Vererbung).
+     * @param effective Node -> Wert (nicht modifizierbar).
+     * @param effectiveWorlds Welt -> (Node -> Wert) (nicht modifizierbar).
+     * @param bits Bitsets zu effective.
+     * @param worldBits Welt -> Bitsets zu effectiveWorlds (gleiche Schlüssel, nicht modifizierbar).
+     * @return Die Kopie.
+     */
+    public Group withEffectivePermissions(Map<String, Boolean> effective, Map<String, Map<String, Boolean>> effectiveWorlds,
+                                          PermissionBits bits, Map<String, PermissionBits> worldBits) {
+        return new Group(id, name, key, prefix, parentName, permissions, compiledPermissions, compiledWorldPermissions,
+                effective, effectiveWorlds, effectivePrefix, bits, worldBits);
+    }
+
+    /**
+     * Kopie mit neu berechnetem effektivem Prefix.
+     * @param effectivePrefix Der farbige, ggf. geerbte Prefix.
+     * @return Die Kopie.
+     */
+    public Group withEffectivePrefix(String effectivePrefix) {
+        return new Group(id, name, key, prefix, parentName, permissions, compiledPermissions, compiledWorldPermissions,
+                effectivePermissions, effectiveWorldPermissions, effectivePrefix != null ? effectivePrefix : "", permissionBits, worldPermissionBits);
+    }
+
+    /**
+     * Gibt die stabile ID der Gruppe zurück.
+     * @return Die ID oder {@link #NO_ID}, wenn keine vergeben ist.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gibt den kleingeschriebenen Namen zurück (einmal berechnet, ohne neue String-Objekte).
+     * @return Der Schlüssel, unter dem die Gruppe z.B. im GroupManager-Cache liegt.
+     */
+    public String getKey() {
+        return key;
     }
 
     /**
@@ -35,23 +243,108 @@ public class Group {
     }
 
     /**
-     * Gibt den Prefix mit aufgelösten Farb-Codes zurück.
+     * Gibt den effektiven Prefix mit aufgelösten Farb-Codes zurück.
+     * Ist der eigene Prefix leer, wird der Prefix der Eltern-Gruppe geerbt (vom GroupManager vorberechnet).
      * @return Farbiger Prefix.
      */
     public String getPrefix() {
-        return ChatColor.translateAlternateColorCodes('&', this.prefix);
+        return effectivePrefix;
     }
 
     /**
-     * Setzt den Prefix der Gruppe.
-     * @param prefix Der neue Prefix (mit '&' für Farben).
+     * Gibt den Namen der Eltern-Gruppe zurück.
+     * @return Name der Eltern-Gruppe oder null.
+     */
+    public String getParentName() {
+        return parentName;
+    }
+
+    /**
+     * Gibt die rohen Permission-Einträge der Gruppe zurück.
+     * @return Nicht modifizierbare Einträge.
+     */
+    public Set<String> getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Gibt die kompilierten eigenen Permissions zurück (Wildcards und Negationen sind bereits aufgelöst, ohne Vererbung).
+     * @return Node -> Wert (nicht modifizierbar).
+     */
+    public Map<String, Boolean> getCompiledPermissions() {
+        return compiledPermissions;
+    }
+
+    /**
+     * Gibt die kompilierten eigenen Permissions pro Welt zurück (ohne Vererbung).
+     * @return Welt -> (Node -> Wert), nur Welten mit eigenen Welt-Einträgen (nicht modifizierbar).
+     */
+    public Map<String, Map<String, Boolean>> getCompiledWorldPermissions() {
+        return compiledWorldPermissions;
+    }
+
+    /**
+     * Gibt die effektiven Permissions inkl. Vererbung zurück (eigene Werte überschreiben die der Eltern-Gruppen).
+     * @return Node -> Wert (nicht modifizierbar).
+     */
+    public Map<String, Boolean> getEffectivePermissions() {
+        return effectivePermissions;
+    }
+
+    /**
+     * Gibt die vorberechneten effektiven Permissions für eine Welt zurück (nur Map-Lookups, keine Auswertung
+     * und keine neuen Objekte - die Schreibweise wird über {@link WorldKeys} einmal pro Welt aufgelöst).
+     * @param world Der Name der Welt (z.B. World#getName()) oder null für die globalen Permissions.
+     * @return Node -> Wert (nicht modifizierbar); die globalen Werte, wenn es für die Welt keine Einträge gibt.
+     */
+    public Map<String, Boolean> getEffectivePermissions(String world) {
+        if (world == null || effectiveWorldPermissions.isEmpty()) return effectivePermissions;
+        return effectiveWorldPermissions.getOrDefault(WorldKeys.of(world), effectivePermissions);
+    }
+
+    /**
+     * Gibt die effektiven Permissions aller Welten mit Welt-Einträgen zurück.
+     * @return Welt -> (Node -> Wert) (nicht modifizierbar).
+     */
+    public Map<String, Map<String, Boolean>> getEffectiveWorldPermissions() {
+        return effectiveWorldPermissions;
+    }
+
+    /**
+     * Prüft in O(1), ob die Gruppe (inkl. Vererbung) in einer Welt einen Node erlaubt - mit denselben Werten,
+     * die der PermissionManager in dieser Welt auf das Attachment setzt.
+     * @param world Der Name der Welt oder null für die globalen Werte (ohne Welt-Einträge).
+     * @param permissionId Die ID aus der PermissionIdRegistry.
+     * @return true, wenn der Node erlaubt ist.
+     */
+    public boolean hasPermissionId(String world, int permissionId) {
+        return getPermissionBits(world).isGranted(permissionId);
+    }
+
+    /**
+     * Prüft in O(1), ob die Gruppe (inkl. Vererbung) in einer Welt einen Node explizit verbietet.
+     * @param world Der Name der Welt oder null für die globalen Werte (ohne Welt-Einträge).
+     * @param permissionId Die ID aus der PermissionIdRegistry.
+     * @return true, wenn der Node negiert ist.
+     */
+    public boolean isPermissionIdDenied(String world, int permissionId) {
+        return getPermissionBits(world).isDenied(permissionId);
+    }
+
+    /**
+     * Gibt die Bitsets für eine Welt zurück. Wird vom PermissionManager beim Setzen der Permissions einmal
+     * aufgelöst und in der PlayerSession abgelegt, damit die Prüfungen ohne Lookup auskommen.
+     * @param world Der Name der Welt oder null für die globalen Werte (ohne Welt-Einträge).
+     * @return Die Bitsets der Welt bzw. die globalen, wenn es für die Welt keine Einträge gibt.
      */
-    public void setPrefix(String prefix) {
-        this.prefix = prefix != null ? prefix : "";
+    public PermissionBits getPermissionBits(String world) {
+        if (world == null || worldPermissionBits.isEmpty()) return permissionBits;
+        return worldPermissionBits.getOrDefault(WorldKeys.of(world), permissionBits);
     }
 
     /**
      * Vergleicht Gruppen basierend auf ihrem Namen (ignoriert Groß-/Kleinschreibung).
+     * Alte und neue Versionen derselben Gruppe sind also gleich.
      */
     @Override
     public boolean equals(Object o) {
@@ -59,7 +352,7 @@ public class Group {
         if (o == null || getClass() != o.getClass()) return false;
         Group group = (Group) o;
         // Wichtig: Vergleich ignoriert Groß-/Kleinschreibung
-        return name.equalsIgnoreCase(group.name);
+        return key.equals(group.key);
     }
 
     /**
@@ -68,14 +361,17 @@ public class Group {
     @Override
     public int hashCode() {
         // Wichtig: Hashcode muss zur equals-Methode passen
-        return name.toLowerCase().hashCode();
+        return key.hashCode();
     }
 
     @Override
     public String toString() {
         return "Group{" +
-               "name='" + name + '\'' +
+               "id=" + id +
+               ", name='" + name + '\'' +
                ", prefix='" + prefix + '\'' +
+               ", parent=" + parentName +
+               ", permissions=" + permissions +
                '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package eu.rawora.playLegendTask.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unveränderlicher, versionierter Stand aller Gruppen. Der GroupManager baut nach jeder Änderung einen neuen
+ * Snapshot und ersetzt die (volatile) Referenz darauf - Leser in beliebigen Threads holen sich die Referenz
+ * einmal und sehen danach einen in sich stimmigen Stand, ohne Locks und ohne Kopien.
+ *
+ * @param version Fortlaufende Nummer, wird bei jeder Veröffentlichung erhöht (z.B. um eigene Caches zu invalidieren).
+ * @param byKey   Kleingeschriebener Name -> Gruppe (nicht modifizierbar).
+ * @param byId    Index = stabile ID der Gruppe, freie IDs sind null. Wird nach der Veröffentlichung nie verändert.
+ * @param groups  Alle Gruppen (nicht modifizierbar).
+ */
+public record GroupSnapshot(long version, Map<String, Group> byKey, Group[] byId, List<Group> groups) {
+
+    /** Leerer Stand vor dem ersten Laden. */
+    public static final GroupSnapshot EMPTY = new GroupSnapshot(0L, Map.of(), new Group[0], List.of());
+
+    /**
+     * @param key Der kleingeschriebene Name.
+     * @return Die Gruppe oder null.
+     */
+    public Group get(String key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * @param id Die stabile ID.
+     * @return Die Gruppe oder null, wenn keine Gruppe diese ID hat.
+     */
+    public Group get(int id) {
+        return id > Group.NO_ID && id < byId.length ? byId[id] : null;
+    }
+}
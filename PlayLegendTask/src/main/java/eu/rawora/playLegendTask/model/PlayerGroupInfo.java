@@ -2,35 +2,17 @@ package eu.rawora.playLegendTask.model;
 
 import java.util.UUID;
 
-public class PlayerGroupInfo {
-    private final UUID playerUUID;
-    private String groupName;
-    // null bedeutet, die Zuweisung ist permanent.
-    private Long expiryTime;
-
-    /**
-     * Konstruktor für Spieler-Gruppen-Informationen.
-     * @param playerUUID Die UUID des Spielers.
-     * @param groupName Der Name der zugewiesenen Gruppe.
-     * @param expiryTime Der Zeitpunkt (ms), an dem die Zuweisung abläuft, oder einfach null für permanent.
-     */
-    public PlayerGroupInfo(UUID playerUUID, String groupName, Long expiryTime) {
-        this.playerUUID = playerUUID;
-        this.groupName = groupName;
-        this.expiryTime = expiryTime;
-    }
-
-    public UUID getPlayerUUID() {
-        return playerUUID;
-    }
-
-    public String getGroupName() {
-        return groupName;
-    }
-
-    public Long getExpiryTime() {
-        return expiryTime;
-    }
+/**
+ * Unveränderliche Gruppenzuweisung eines Spielers.
+ * Änderungen erzeugen ein neues Objekt, das im PlayerDataManager als Ganzes ersetzt wird (volatile Referenz
+ * in der PlayerSession) - Leser in anderen Threads (Chat, Ablauf-Prüfung, API) sehen dadurch immer einen
+ * vollständigen Stand, ohne zu synchronisieren.
+ *
+ * @param playerUUID Die UUID des Spielers.
+ * @param groupName  Der Name der zugewiesenen Gruppe.
+ * @param expiryTime Der Zeitpunkt (ms), an dem die Zuweisung abläuft, oder einfach null für permanent.
+ */
+public record PlayerGroupInfo(UUID playerUUID, String groupName, Long expiryTime) {
 
     /**
      * Prüft, ob die Gruppenzuweisung permanent ist.
@@ -53,22 +35,6 @@ public class PlayerGroupInfo {
         return System.currentTimeMillis() >= expiryTime;
     }
 
-    /**
-     * Aktualisiert den Gruppennamen (z.B. wenn Spieler neue Gruppe bekommt).
-     * @param groupName Der neue Gruppenname.
-     */
-    public void setGroupName(String groupName) {
-        this.groupName = groupName;
-    }
-
-    /**
-     * Aktualisiert die Ablaufzeit (z.B. wenn Dauer geändert wird).
-     * @param expiryTime Der neue Ablaufzeitpunkt (ms) oder null für permanent.
-     */
-    public void setExpiryTime(Long expiryTime) {
-        this.expiryTime = expiryTime;
-    }
-
     @Override
     public String toString() {
         return "PlayerGroupInfo{" +
@@ -77,4 +43,4 @@ public class PlayerGroupInfo {
                ", expiryTime=" + (expiryTime == null ? "Permanent" : expiryTime) +
                '}';
     }
-}
\ No newline at end of file
+}
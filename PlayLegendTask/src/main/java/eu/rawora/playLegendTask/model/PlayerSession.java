@@ -0,0 +1,106 @@
+package eu.rawora.playLegendTask.model;
+
+import eu.rawora.playLegendTask.scoreboard.Sidebar;
+import org.bukkit.permissions.PermissionAttachment;
+
+import java.util.UUID;
+
+/**
+ * Gesamter Laufzeit-Zustand eines online Spielers an einer Stelle: Gruppeninformationen, aufgelöste Gruppe,
+ * PermissionAttachment samt gesetztem Gruppen-Node, Sidebar und die zuletzt gesetzten Anzeigenamen.
+ * Wird vom PlayerDataManager beim Laden angelegt und beim Verlassen als Ganzes entfernt.
+ * Geschrieben wird nur im Bukkit-Hauptthread; info, group und permissionBits sind volatile, da sie auch aus anderen
+ * Threads gelesen werden (z.B. Chat, öffentliche API).
+ */
+public class PlayerSession {
+
+    private final UUID uuid;
+    private volatile PlayerGroupInfo info;
+    private volatile Group group; // Aufgelöste Gruppe (Default bei ungültiger Gruppe), null solange keine Gruppen geladen sind
+    // Bitsets der Gruppe für die Welt, in der die Permissions zuletzt gesetzt wurden (öffentliche ID-API)
+    private volatile Group.PermissionBits permissionBits = Group.PermissionBits.EMPTY;
+
+    // Permissions (nur PermissionManager, Hauptthread)
+    private PermissionAttachment attachment;
+    private String permissionNode; // Zuletzt auf das Attachment gesetzter Gruppen-Node (null = keiner)
+
+    // Anzeige (nur PlayerDataManager, Hauptthread)
+    private Sidebar sidebar;
+    private String displayName; // Zuletzt gesetzter Anzeigename, unverändert -> nicht erneut setzen
+    private String playerListName;
+
+    public PlayerSession(UUID uuid, PlayerGroupInfo info) {
+        this.uuid = uuid;
+        this.info = info;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public PlayerGroupInfo getInfo() {
+        return info;
+    }
+
+    public void setInfo(PlayerGroupInfo info) {
+        this.info = info;
+    }
+
+    public Group getGroup() {
+        return group;
+    }
+
+    public void setGroup(Group group) {
+        this.group = group;
+    }
+
+    /** @return Die Bitsets passend zum aktuell gesetzten Stand (leer, solange keine Permissions gesetzt sind). */
+    public Group.PermissionBits getPermissionBits() {
+        return permissionBits;
+    }
+
+    public void setPermissionBits(Group.PermissionBits permissionBits) {
+        this.permissionBits = permissionBits;
+    }
+
+    public PermissionAttachment getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(PermissionAttachment attachment) {
+        this.attachment = attachment;
+    }
+
+    /** @return Der aktuell auf das Attachment gesetzte Gruppen-Node oder null (nur für den PermissionManager). */
+    public String getPermissionNode() {
+        return permissionNode;
+    }
+
+    public void setPermissionNode(String permissionNode) {
+        this.permissionNode = permissionNode;
+    }
+
+    public Sidebar getSidebar() {
+        return sidebar;
+    }
+
+    public void setSidebar(Sidebar sidebar) {
+        this.sidebar = sidebar;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getPlayerListName() {
+        return playerListName;
+    }
+
+    public void setPlayerListName(String playerListName) {
+        this.playerListName = playerListName;
+    }
+}
@@ -0,0 +1,199 @@
+package eu.rawora.playLegendTask.scoreboard;
+
+import org.bukkit.ChatColor;
+import org.bukkit.scoreboard.DisplaySlot;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Sidebar eines Spielers mit Gedächtnis: merkt sich die zuletzt gesendeten Zeilen
+ * und schickt bei einem Update nur Änderungen für Zeilen, deren Text sich wirklich geändert hat.
+ * Jede Zeile ist ein fester, unsichtbarer Eintrag (Farbcode) in einem eigenen Team. Der Text steht im
+ * Prefix/Suffix des Teams - eine Textänderung ist damit ein einziges Team-Update statt Entfernen + Hinzufügen.
+ * Muss im Bukkit-Hauptthread benutzt werden.
+ */
+public class Sidebar {
+
+    private static final String OBJECTIVE_NAME = "playerInfo"; // Fester Name für unser Objective
+    private static final String TEAM_PREFIX = "pltask_line_";
+    private static final int MAX_LINES = 15; // Mehr Zeilen zeigt der Client nicht an
+    private static final int MAX_PREFIX_LENGTH = 64; // Längerer Text wird im Suffix fortgesetzt
+    private static final ChatColor[] LINE_COLORS = ChatColor.values(); // Die ersten 16 sind Farben
+
+    private final Scoreboard board;
+    private final Objective objective;
+    private final SidebarStats stats;
+    private String title;
+    // Zuletzt gesendeter Stand, Index 0 = oberste Zeile
+    private final List<String> lines = new ArrayList<>();
+    private final List<Team> teams = new ArrayList<>(); // Team pro Zeilen-Index (bleibt bestehen)
+
+    public Sidebar(Scoreboard board, String title, SidebarStats stats) {
+        this.board = board;
+        this.stats = stats;
+        this.title = title;
+        Objective existing = board.getObjective(OBJECTIVE_NAME);
+        if (existing == null) {
+            existing = board.registerNewObjective(OBJECTIVE_NAME, "dummy", title);
+            existing.setDisplaySlot(DisplaySlot.SIDEBAR); // Anzeige rechts
+        } else {
+            existing.setDisplayName(title);
+        }
+        this.objective = existing;
+    }
+
+    public Scoreboard getScoreboard() {
+        return board;
+    }
+
+    /**
+     * Bringt die Sidebar auf den neuen Stand und sendet nur die Unterschiede.
+     *
+     * @param newTitle Der (farbige) Titel.
+     * @param newLines Die fertig gerenderten Zeilen, oberste zuerst (maximal 15 werden angezeigt).
+     */
+    public void update(String newTitle, List<String> newLines) {
+        int packets = 0;
+        int changed = 0;
+
+        if (!newTitle.equals(title)) {
+            objective.setDisplayName(newTitle);
+            title = newTitle;
+            packets++;
+        }
+
+        int size = Math.min(newLines.size(), MAX_LINES);
+        // Ändert sich die Zeilenanzahl, verschieben sich alle Scores -> Scores neu setzen (Texte bleiben)
+        boolean rescore = size != lines.size();
+        while (lines.size() > size) {
+            int last = lines.size() - 1;
+            board.resetScores(entryFor(last));
+            lines.remove(last);
+            packets++;
+        }
+
+        for (int i = 0; i < size; i++) {
+            String text = newLines.get(i);
+            boolean known = i < lines.size();
+
+            if (!known || !text.equals(lines.get(i))) {
+                packets += applyText(teamFor(i), known ? lines.get(i) : "", text);
+                changed++;
+                if (known) {
+                    lines.set(i, text);
+                } else {
+                    lines.add(text);
+                }
+            }
+            if (rescore) {
+                objective.getScore(entryFor(i)).setScore(size - i); // Höchster Score = oberste Zeile
+                packets++;
+            }
+        }
+
+        stats.recordUpdate();
+        stats.recordLines(size, changed);
+        stats.recordPackets(packets);
+    }
+
+    /**
+     * Periodisches Teil-Update: rendert und aktualisiert nur die angegebenen Zeilen.
+     *
+     * @param indices  Die Zeilen-Indizes (0 = oberste Zeile).
+     * @param renderer Rendert den Text für einen Zeilen-Index.
+     */
+    public void refreshLines(int[] indices, IntFunction<String> renderer) {
+        stats.recordRefresh();
+        for (int index : indices) {
+            setLine(index, renderer.apply(index));
+        }
+    }
+
+    /**
+     * Aktualisiert eine einzelne, bereits vorhandene Zeile (z.B. Countdown oder Online-Zähler),
+     * ohne die übrigen Zeilen anzufassen. Sendet nur etwas, wenn sich der Text geändert hat.
+     *
+     * @param index Zeilen-Index, 0 = oberste Zeile.
+     * @param text  Der fertig gerenderte Text.
+     */
+    public void setLine(int index, String text) {
+        if (index >= lines.size()) return; // Zeile existiert (noch) nicht -> kommt mit dem nächsten update
+        int packets = 0;
+        int changed = 0;
+        if (!text.equals(lines.get(index))) {
+            packets = applyText(teamFor(index), lines.get(index), text);
+            lines.set(index, text);
+            changed = 1;
+        }
+        stats.recordLines(1, changed);
+        stats.recordPackets(packets);
+    }
+
+    /**
+     * Holt (oder erstellt) das Team für einen Zeilen-Index. Der Eintrag des Teams ändert sich nie.
+     */
+    private Team teamFor(int index) {
+        while (teams.size() <= index) {
+            int next = teams.size();
+            String name = TEAM_PREFIX + next;
+            Team team = board.getTeam(name);
+            if (team == null) {
+                team = board.registerNewTeam(name);
+            }
+            String entry = entryFor(next);
+            if (!team.hasEntry(entry)) {
+                team.addEntry(entry);
+            }
+            teams.add(team);
+        }
+        return teams.get(index);
+    }
+
+    /**
+     * Fester, unsichtbarer Eintrag für eine Zeile (ein Farbcode pro Index, daher eindeutig).
+     */
+    private static String entryFor(int index) {
+        return LINE_COLORS[index].toString();
+    }
+
+    /**
+     * Schreibt den Text in Prefix/Suffix des Teams. Sendet nur die Hälfte, die sich geändert hat.
+     * @return Anzahl der gesendeten Team-Updates.
+     */
+    private int applyText(Team team, String oldText, String newText) {
+        String[] oldParts = split(oldText);
+        String[] newParts = split(newText);
+        int packets = 0;
+        if (!newParts[0].equals(oldParts[0])) {
+            team.setPrefix(newParts[0]);
+            packets++;
+        }
+        if (!newParts[1].equals(oldParts[1])) {
+            team.setSuffix(newParts[1]);
+            packets++;
+        }
+        return packets;
+    }
+
+    /**
+     * Teilt einen Text in Prefix und Suffix. Der Suffix übernimmt die letzten Farben des Prefix
+     * und es wird nie mitten in einem Farbcode getrennt.
+     */
+    private static String[] split(String text) {
+        if (text.length() <= MAX_PREFIX_LENGTH) {
+            return new String[]{text, ""};
+        }
+        int cut = MAX_PREFIX_LENGTH;
+        if (text.charAt(cut - 1) == ChatColor.COLOR_CHAR) {
+            cut--; // Farbcode nicht auseinanderreißen
+        }
+        String prefix = text.substring(0, cut);
+        String suffix = ChatColor.getLastColors(prefix) + text.substring(cut);
+        return new String[]{prefix, suffix};
+    }
+}
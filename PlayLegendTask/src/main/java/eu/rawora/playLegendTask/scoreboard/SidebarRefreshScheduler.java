@@ -0,0 +1,133 @@
+package eu.rawora.playLegendTask.scoreboard;
+
+import eu.rawora.playLegendTask.PlayLegendTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Aktualisiert die Sidebar-Zeilen, die sich ohne äußeren Anlass ändern:
+ * Countdowns (%expiry_time%) einmal pro Sekunde und den Online-Zähler (%online_players%)
+ * einmal nach jedem Schwung von Joins/Quits.
+ * Die Spieler sind auf 20 Buckets verteilt, pro Tick wird genau ein Bucket abgearbeitet -
+ * so verteilt sich die Arbeit gleichmäßig über die Sekunde statt einer großen Spitze.
+ * Läuft komplett im Bukkit-Hauptthread.
+ */
+public class SidebarRefreshScheduler {
+
+    /**
+     * Wird pro fälligem Spieler aufgerufen und rendert die betroffenen Zeilen neu.
+     */
+    @FunctionalInterface
+    public interface Refresher {
+        void refresh(Player player, boolean timeLines, boolean onlineLines);
+    }
+
+    private static final int BUCKETS = 20; // Ein Bucket pro Tick -> jeder Spieler einmal pro Sekunde
+
+    private final PlayLegendTask plugin;
+    private final Refresher refresher;
+    private final List<Map<UUID, Tracked>> buckets = new ArrayList<>(BUCKETS);
+    private final Map<UUID, Tracked> tracked = new HashMap<>();
+    private int nextBucket = 0; // Round-Robin für neue Spieler
+    private int tickIndex = 0;
+    // Wird bei jedem Join/Quit erhöht, jeder Spieler merkt sich den zuletzt gerenderten Stand
+    private int onlineEpoch = 0;
+    private BukkitTask task;
+
+    private static final class Tracked {
+        final UUID uuid;
+        final int bucket;
+        int seenOnlineEpoch;
+
+        Tracked(UUID uuid, int bucket, int seenOnlineEpoch) {
+            this.uuid = uuid;
+            this.bucket = bucket;
+            this.seenOnlineEpoch = seenOnlineEpoch;
+        }
+    }
+
+    public SidebarRefreshScheduler(PlayLegendTask plugin, Refresher refresher) {
+        this.plugin = plugin;
+        this.refresher = refresher;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Startet den Task (jeden Tick, Hauptthread).
+     */
+    public void start() {
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null && !task.isCancelled()) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Nimmt einen Spieler mit Sidebar in die periodische Aktualisierung auf.
+     * Die Sidebar wurde gerade vollständig gerendert, der Online-Zähler gilt damit als aktuell.
+     *
+     * @param uuid Die UUID des Spielers.
+     */
+    public void track(UUID uuid) {
+        if (tracked.containsKey(uuid)) return;
+        int bucket = nextBucket;
+        nextBucket = (nextBucket + 1) % BUCKETS;
+        Tracked entry = new Tracked(uuid, bucket, onlineEpoch);
+        tracked.put(uuid, entry);
+        buckets.get(bucket).put(uuid, entry);
+    }
+
+    /**
+     * Entfernt einen Spieler aus der periodischen Aktualisierung.
+     *
+     * @param uuid Die UUID des Spielers.
+     */
+    public void untrack(UUID uuid) {
+        Tracked entry = tracked.remove(uuid);
+        if (entry != null) {
+            buckets.get(entry.bucket).remove(uuid);
+        }
+    }
+
+    /**
+     * Markiert den Online-Zähler als veraltet (bei Join/Quit). Mehrere Joins/Quits innerhalb
+     * einer Sekunde führen nur zu einer Aktualisierung pro Spieler.
+     */
+    public void markOnlineCountChanged() {
+        onlineEpoch++;
+    }
+
+    public void clear() {
+        tracked.clear();
+        for (Map<UUID, Tracked> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    private void tick() {
+        Map<UUID, Tracked> bucket = buckets.get(tickIndex);
+        tickIndex = (tickIndex + 1) % BUCKETS;
+        if (bucket.isEmpty()) return;
+
+        for (Tracked entry : bucket.values()) {
+            Player player = Bukkit.getPlayer(entry.uuid);
+            if (player == null || !player.isOnline()) continue; // Wird beim Quit entfernt
+            boolean onlineChanged = entry.seenOnlineEpoch != onlineEpoch;
+            entry.seenOnlineEpoch = onlineEpoch;
+            refresher.refresh(player, true, onlineChanged);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package eu.rawora.playLegendTask.scoreboard;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zähler für die Sidebar-Updates aller Spieler.
+ * Vergleicht die tatsächlich gesendeten Änderungen mit einem kompletten Neuaufbau (alle Zeilen neu setzen).
+ */
+public class SidebarStats {
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong(); // Periodische Teil-Updates (nur abhängige Zeilen)
+    private final AtomicLong linesChecked = new AtomicLong();
+    private final AtomicLong linesChanged = new AtomicLong();
+    private final AtomicLong packetsSent = new AtomicLong();
+
+    void recordUpdate() {
+        updates.incrementAndGet();
+    }
+
+    void recordRefresh() {
+        refreshes.incrementAndGet();
+    }
+
+    void recordLines(int checked, int changed) {
+        linesChecked.addAndGet(checked);
+        linesChanged.addAndGet(changed);
+    }
+
+    void recordPackets(int packets) {
+        packetsSent.addAndGet(packets);
+    }
+
+    /** @return Anzahl der Sidebar-Updates. */
+    public long getUpdates() {
+        return updates.get();
+    }
+
+    /** @return Anzahl der periodischen Teil-Updates (z.B. Countdown, Online-Zähler). */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /** @return Anzahl der geprüften Zeilen. */
+    public long getLinesChecked() {
+        return linesChecked.get();
+    }
+
+    /** @return Anzahl der tatsächlich geänderten Zeilen. */
+    public long getLinesChanged() {
+        return linesChanged.get();
+    }
+
+    /** @return Anzahl der gesendeten Scoreboard-Änderungen (je eine Änderung = ein Paket). */
+    public long getPacketsSent() {
+        return packetsSent.get();
+    }
+
+    /** @return Durchschnittlich gesendete Pakete pro (Teil-)Update. */
+    public double getPacketsPerUpdate() {
+        long count = updates.get() + refreshes.get();
+        return count == 0 ? 0.0 : (double) packetsSent.get() / count;
+    }
+
+    /**
+     * Fasst die Metriken in einer Zeile zusammen (für /group stats).
+     * "full rebuild" schätzt die Pakete eines Neuaufbaus: pro Zeile entfernen + neu setzen.
+     * @return Lesbare Zusammenfassung.
+     */
+    public String getStatsSummary() {
+        long fullRebuild = linesChecked.get() * 2;
+        double saved = fullRebuild == 0 ? 0.0 : 100.0 * (fullRebuild - packetsSent.get()) / fullRebuild;
+        return String.format("Sidebar: updates=%d, refreshes=%d, lines changed=%d/%d, packets=%d (%.2f/update, %.1f%% saved vs. full rebuild)",
+                getUpdates(), getRefreshes(), getLinesChanged(), getLinesChecked(), getPacketsSent(), getPacketsPerUpdate(), saved);
+    }
+}
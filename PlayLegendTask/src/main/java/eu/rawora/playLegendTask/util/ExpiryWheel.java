@@ -0,0 +1,192 @@
+package eu.rawora.playLegendTask.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchisches Timing Wheel für Ablaufzeitpunkte (ein Eintrag pro Schlüssel).
+ * Auflösung ist ein Server-Tick (50 ms). 4 Ebenen mit je 64 Slots decken ca. 9,7 Tage ab,
+ * weiter entfernte Einträge werden beim Kaskadieren einfach erneut einsortiert.
+ * Einfügen, Entfernen und das Auslösen eines Eintrags kosten O(1) - es wird nie über alle Einträge iteriert.
+ * NICHT thread-sicher, wird nur im Bukkit-Hauptthread benutzt.
+ *
+ * @param <K> Typ des Schlüssels (z.B. UUID).
+ */
+public final class ExpiryWheel<K> {
+
+    public static final long TICK_MILLIS = 50L;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS; // 64
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // Größter Abstand (in Ticks), der ohne erneutes Einsortieren abgebildet werden kann
+    private static final long MAX_DELAY_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final Node<K>[][] wheels; // [Ebene][Slot] -> Sentinel einer doppelt verketteten Ringliste
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final long originMillis;
+    // Nächster noch nicht abgearbeiteter Tick
+    private long currentTick;
+
+    private static final class Node<K> {
+        final K key;
+        long deadlineTick;
+        Node<K> prev;
+        Node<K> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public ExpiryWheel(long originMillis) {
+        this.originMillis = originMillis;
+        this.wheels = new Node[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Node<K> sentinel = new Node<>(null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheels[level][slot] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Plant (oder verschiebt) den Ablauf für einen Schlüssel.
+     *
+     * @param key            Der Schlüssel.
+     * @param deadlineMillis Ablaufzeitpunkt (ms). Liegt er in der Vergangenheit, löst er beim nächsten advance aus.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            node.unlink();
+        }
+        // Aufrunden, damit ein Eintrag nie vor seinem Zeitpunkt auslöst.
+        // Nie vor currentTick einsortieren, sonst landet er in einem bereits abgearbeiteten Slot.
+        long deadlineTick = Math.floorDiv(deadlineMillis - originMillis + TICK_MILLIS - 1, TICK_MILLIS);
+        node.deadlineTick = Math.max(deadlineTick, currentTick);
+        insert(node);
+    }
+
+    /**
+     * Entfernt den geplanten Ablauf für einen Schlüssel.
+     *
+     * @param key Der Schlüssel.
+     * @return true, wenn ein Eintrag entfernt wurde.
+     */
+    public boolean cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node == null) return false;
+        node.unlink();
+        return true;
+    }
+
+    /** @return true, wenn für den Schlüssel ein Ablauf geplant ist. */
+    public boolean contains(K key) {
+        return nodes.containsKey(key);
+    }
+
+    /** @return Anzahl der geplanten Einträge. */
+    public int size() {
+        return nodes.size();
+    }
+
+    /** Entfernt alle Einträge. */
+    public void clear() {
+        for (Node<K> node : nodes.values()) {
+            node.unlink();
+        }
+        nodes.clear();
+    }
+
+    /**
+     * Arbeitet alle Ticks bis einschließlich "jetzt" ab und gibt die abgelaufenen Schlüssel zurück.
+     * Die Schlüssel sind danach nicht mehr geplant. Die Rückgabe erfolgt gesammelt, damit der Aufrufer
+     * (z.B. beim Zuweisen der Default-Gruppe) gefahrlos neue Einträge planen kann.
+     *
+     * @param nowMillis Aktuelle Zeit (ms).
+     * @return Abgelaufene Schlüssel (leer, wenn nichts abgelaufen ist).
+     */
+    public List<K> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - originMillis, TICK_MILLIS);
+        if (targetTick < currentTick) return Collections.emptyList();
+        if (nodes.isEmpty()) {
+            currentTick = targetTick + 1; // Nichts geplant -> Ticks einfach überspringen
+            return Collections.emptyList();
+        }
+
+        List<K> expired = null;
+        while (currentTick <= targetTick) {
+            int index = (int) (currentTick & SLOT_MASK);
+            if (index == 0) {
+                cascade(1); // Ebene 0 ist einmal herum -> nächsthöheren Slot herunterholen
+            }
+            Node<K> sentinel = wheels[0][index];
+            while (sentinel.next != sentinel) {
+                Node<K> node = sentinel.next;
+                node.unlink();
+                nodes.remove(node.key);
+                if (expired == null) expired = new ArrayList<>();
+                expired.add(node.key);
+            }
+            currentTick++;
+        }
+        return expired == null ? Collections.emptyList() : expired;
+    }
+
+    /**
+     * Holt den aktuellen Slot der angegebenen Ebene herunter und sortiert seine Einträge neu ein.
+     * Läuft diese Ebene dabei ebenfalls einmal herum, wird die nächsthöhere mitgenommen.
+     */
+    private void cascade(int level) {
+        if (level >= LEVELS) return;
+        int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        if (index == 0) {
+            cascade(level + 1); // Erst von oben nachfüllen
+        }
+        Node<K> sentinel = wheels[level][index];
+        Node<K> node = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        while (node != sentinel) {
+            Node<K> next = node.next;
+            insert(node);
+            node = next;
+        }
+    }
+
+    private void insert(Node<K> node) {
+        long delay = node.deadlineTick - currentTick;
+        // Zu weit entfernt -> in den letzten Slot der obersten Ebene, beim Kaskadieren wird neu einsortiert
+        long placementTick = delay > MAX_DELAY_TICKS ? currentTick + MAX_DELAY_TICKS : node.deadlineTick;
+        delay = placementTick - currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((placementTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        Node<K> sentinel = wheels[level][index];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+}
@@ -0,0 +1,69 @@
+package eu.rawora.playLegendTask.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vergibt jedem Permission-Node eine feste, fortlaufende Integer-ID (String-Interning).
+ * IDs werden beim Laden/Ändern der Gruppen vergeben und nie wiederverwendet - andere Plugins können sie
+ * also einmal auflösen und danach dauerhaft benutzen, ohne bei jeder Prüfung einen String zu hashen.
+ * Lesen ist aus jedem Thread möglich, neue IDs werden nur im Hauptthread vergeben.
+ */
+public final class PermissionIdRegistry {
+
+    /** Rückgabewert für unbekannte Nodes. */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private volatile int size = 0;
+
+    /**
+     * Gibt die ID eines Nodes zurück und vergibt bei Bedarf eine neue.
+     *
+     * @param permission Der Node (wird kleingeschrieben, wie Bukkit ihn speichert).
+     * @return Die ID (>= 0).
+     */
+    public synchronized int intern(String permission) {
+        String key = permission.toLowerCase();
+        Integer existing = ids.get(key);
+        if (existing != null) return existing;
+
+        int id = size;
+        String[] current = names;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = key;
+        names = current; // Erst das Array veröffentlichen, dann die Größe und die ID
+        size = id + 1;
+        ids.put(key, id);
+        return id;
+    }
+
+    /**
+     * Löst einen Node zu seiner ID auf, ohne eine neue zu vergeben.
+     *
+     * @param permission Der Node.
+     * @return Die ID oder {@link #UNKNOWN}, wenn der Node keiner Gruppe bekannt ist.
+     */
+    public int getId(String permission) {
+        if (permission == null) return UNKNOWN;
+        Integer id = ids.get(permission.toLowerCase());
+        return id != null ? id : UNKNOWN;
+    }
+
+    /**
+     * @param id Die ID.
+     * @return Der Node zur ID oder null, wenn die ID nicht vergeben ist.
+     */
+    public String getName(int id) {
+        return id >= 0 && id < size ? names[id] : null;
+    }
+
+    /** @return Anzahl der vergebenen IDs. */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,187 @@
+package eu.rawora.playLegendTask.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie über die Segmente von Permission-Nodes ("a.b.c" -> a -> b -> c) für die Regeln einer Gruppe.
+ * Unterstützt exakte Nodes, Wildcards ("*", "a.b.*") und Negationen ("-a.b.c").
+ * Einträge können mit "welt:" auf eine Welt beschränkt werden (z.B. "lobby:-essentials.fly"); der Trie selbst
+ * bekommt nur den Node ohne Welt, die Aufteilung nach Welten übernimmt der GroupManager.
+ * Auflösung: die spezifischste Regel gewinnt (exakter Node vor "a.b.*" vor "a.*" vor "*"),
+ * bei gleicher Spezifität gewinnt die Negation.
+ * Wird nur beim Laden/Ändern von Gruppen benutzt - zur Laufzeit wird nur die kompilierte, flache Map kopiert.
+ */
+public final class PermissionTrie {
+
+    private static final String WILDCARD = "*";
+    private static final char WORLD_SEPARATOR = ':';
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        Boolean value;    // Regel für genau diesen Node
+        Boolean wildcard; // Regel für "<dieser Node>.*" (alles darunter)
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Normalisiert einen Eintrag so, wie er gespeichert und verglichen wird (getrimmt, kleingeschrieben - wie Bukkit).
+     *
+     * @param entry Der rohe Eintrag, z.B. " -Essentials.Fly " oder "Lobby:essentials.fly".
+     * @return Der normalisierte Eintrag oder null, wenn er leer bzw. ungültig ist.
+     */
+    public static String normalize(String entry) {
+        if (entry == null) return null;
+        String normalized = entry.trim().toLowerCase();
+        String world = worldOf(normalized);
+        if (world != null && (world.isEmpty() || world.contains(" ") || world.startsWith("-"))) {
+            return null; // Negation gehört hinter die Welt: "welt:-node"
+        }
+        String body = nodeOf(normalized);
+        if (body.indexOf(WORLD_SEPARATOR) >= 0) return null; // Höchstens eine Welt pro Eintrag
+        if (body.isEmpty() || body.contains(" ") || body.startsWith(".") || body.endsWith(".") || body.contains("..")) {
+            return null;
+        }
+        int star = body.indexOf('*');
+        if (star >= 0 && !(body.equals(WILDCARD) || (star == body.length() - 1 && body.endsWith("." + WILDCARD)))) {
+            return null; // Wildcards nur am Ende ("a.b.*") oder allein ("*")
+        }
+        return normalized;
+    }
+
+    /**
+     * @param entry Normalisierter Eintrag.
+     * @return Die Welt, auf die der Eintrag beschränkt ist, oder null für einen globalen Eintrag.
+     */
+    public static String worldOf(String entry) {
+        int separator = entry.indexOf(WORLD_SEPARATOR);
+        return separator >= 0 ? entry.substring(0, separator) : null;
+    }
+
+    /**
+     * @param entry Normalisierter Eintrag.
+     * @return Der Eintrag ohne Welt, aber mit Negation (so wie ihn {@link #add(String)} erwartet).
+     */
+    public static String stripWorld(String entry) {
+        int separator = entry.indexOf(WORLD_SEPARATOR);
+        return separator >= 0 ? entry.substring(separator + 1) : entry;
+    }
+
+    /**
+     * @param entry Normalisierter Eintrag.
+     * @return Der reine Node ohne Welt und Negation, z.B. "a.b.*".
+     */
+    public static String nodeOf(String entry) {
+        String stripped = stripWorld(entry);
+        return stripped.startsWith("-") ? stripped.substring(1) : stripped;
+    }
+
+    /**
+     * Fügt einen Eintrag (Regel) hinzu.
+     *
+     * @param entry Normalisierter Eintrag ohne Welt, z.B. "a.b.c", "a.b.*", "*" oder "-a.b.c".
+     */
+    public void add(String entry) {
+        boolean value = !entry.startsWith("-");
+        String body = value ? entry : entry.substring(1);
+
+        if (body.equals(WILDCARD)) {
+            root.wildcard = merge(root.wildcard, value);
+            return;
+        }
+        boolean isWildcard = body.endsWith("." + WILDCARD);
+        if (isWildcard) {
+            body = body.substring(0, body.length() - 2);
+        }
+        Node node = root;
+        for (String segment : split(body)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        if (isWildcard) {
+            node.wildcard = merge(node.wildcard, value);
+        } else {
+            node.value = merge(node.value, value);
+        }
+    }
+
+    /**
+     * Löst einen konkreten Node gegen die Regeln auf.
+     *
+     * @param permission Der Node (kleingeschrieben), z.B. "a.b.c".
+     * @return Der Wert der spezifischsten passenden Regel oder null, wenn keine Regel passt.
+     */
+    public Boolean resolve(String permission) {
+        Boolean best = root.wildcard;
+        Node node = root;
+        List<String> segments = split(permission);
+        for (int i = 0; i < segments.size(); i++) {
+            node = node.children.get(segments.get(i));
+            if (node == null) break;
+            if (i == segments.size() - 1) {
+                if (node.value != null) return node.value;
+            } else if (node.wildcard != null) {
+                best = node.wildcard; // "a.b.*" gilt nur für Nodes unterhalb von a.b
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Kompiliert die Regeln in eine flache Map für das PermissionAttachment.
+     * Enthält alle expliziten Regeln (Wildcards als "a.b.*", damit von Plugins registrierte Wildcard-Permissions
+     * mit Kindern weiterhin greifen) sowie jeden bekannten Node, den eine Regel abdeckt.
+     *
+     * @param knownPermissions Alle bekannten Nodes (z.B. von Plugins registrierte Permissions).
+     * @return Node -> Wert (nicht veränderbar).
+     */
+    public Map<String, Boolean> compile(Collection<String> knownPermissions) {
+        Map<String, Boolean> compiled = new LinkedHashMap<>();
+        collectExplicit(root, "", compiled);
+        for (String permission : knownPermissions) {
+            String lower = permission.toLowerCase();
+            if (compiled.containsKey(lower)) continue;
+            Boolean value = resolve(lower);
+            if (value != null) {
+                compiled.put(lower, value);
+            }
+        }
+        return Map.copyOf(compiled);
+    }
+
+    private void collectExplicit(Node node, String path, Map<String, Boolean> target) {
+        if (node.wildcard != null) {
+            target.put(path.isEmpty() ? WILDCARD : path + "." + WILDCARD, node.wildcard);
+        }
+        if (node.value != null) {
+            target.put(path, node.value);
+        }
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            collectExplicit(child.getValue(), path.isEmpty() ? child.getKey() : path + "." + child.getKey(), target);
+        }
+    }
+
+    /**
+     * Negation gewinnt bei gleicher Spezifität (z.B. "a.b" und "-a.b" in derselben Gruppe).
+     */
+    private static Boolean merge(Boolean existing, boolean value) {
+        if (existing == null) return value;
+        return existing && value;
+    }
+
+    private static List<String> split(String permission) {
+        List<String> segments = new ArrayList<>(4);
+        int start = 0;
+        int dot;
+        while ((dot = permission.indexOf('.', start)) >= 0) {
+            segments.add(permission.substring(start, dot));
+            start = dot + 1;
+        }
+        segments.add(permission.substring(start));
+        return segments;
+    }
+}
@@ -0,0 +1,153 @@
+package eu.rawora.playLegendTask.util;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Vorkompiliertes Format mit Platzhaltern (z.B. "%group_prefix% &r%player%").
+ * Das Format wird einmal beim Laden der Config in Text- und Platzhalter-Tokens zerlegt, Farbcodes
+ * werden dabei bereits übersetzt. Beim Rendern wird nur noch angehängt - Platzhalter, die im Format
+ * nicht vorkommen, werden gar nicht erst aufgelöst.
+ */
+public final class PlaceholderTemplate {
+
+    /**
+     * Alle unterstützten Platzhalter.
+     */
+    public enum Placeholder {
+        PLAYER("%player%"),
+        GROUP_NAME("%group_name%"),
+        RANK("%rank%"), // Alias für %group_name%
+        GROUP_PREFIX("%group_prefix%"),
+        EXPIRY_TIME("%expiry_time%"),
+        ONLINE_PLAYERS("%online_players%"),
+        GROUP_ONLINE("%group_online%"); // Online Mitglieder der eigenen Gruppe
+
+        private final String token;
+
+        Placeholder(String token) {
+            this.token = token;
+        }
+
+        public String getToken() {
+            return token;
+        }
+    }
+
+    /**
+     * Löst einen Platzhalter auf, indem der Wert direkt an den Builder angehängt wird.
+     */
+    @FunctionalInterface
+    public interface Resolver {
+        void append(Placeholder placeholder, StringBuilder target);
+    }
+
+    private static final Placeholder[] PLACEHOLDERS = Placeholder.values();
+    // Wiederverwendbarer Builder pro Thread (Rendern passiert fast immer im Hauptthread)
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    // Tokens: entweder String (Text, Farben bereits übersetzt) oder Placeholder
+    private final Object[] tokens;
+    private final Set<Placeholder> used;
+    private final String staticText; // Nur gesetzt, wenn das Format keine Platzhalter enthält
+
+    private PlaceholderTemplate(Object[] tokens, Set<Placeholder> used) {
+        this.tokens = tokens;
+        this.used = used;
+        if (used.isEmpty()) {
+            this.staticText = tokens.length == 0 ? "" : (String) tokens[0];
+        } else {
+            this.staticText = null;
+        }
+    }
+
+    /**
+     * Zerlegt ein Format in Tokens und übersetzt die '&'-Farbcodes der Textteile.
+     *
+     * @param format Das Format aus der Config (null wird wie "" behandelt).
+     * @return Das kompilierte Template.
+     */
+    public static PlaceholderTemplate compile(String format) {
+        if (format == null || format.isEmpty()) {
+            return new PlaceholderTemplate(new Object[0], EnumSet.noneOf(Placeholder.class));
+        }
+        List<Object> tokens = new ArrayList<>();
+        Set<Placeholder> used = EnumSet.noneOf(Placeholder.class);
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < format.length()) {
+            Placeholder match = null;
+            if (format.charAt(i) == '%') {
+                for (Placeholder placeholder : PLACEHOLDERS) {
+                    if (format.startsWith(placeholder.token, i)) {
+                        match = placeholder;
+                        break;
+                    }
+                }
+            }
+            if (match == null) {
+                literal.append(format.charAt(i++));
+                continue;
+            }
+            if (!literal.isEmpty()) {
+                tokens.add(ChatColor.translateAlternateColorCodes('&', literal.toString()));
+                literal.setLength(0);
+            }
+            tokens.add(match);
+            used.add(match);
+            i += match.token.length();
+        }
+        if (!literal.isEmpty()) {
+            tokens.add(ChatColor.translateAlternateColorCodes('&', literal.toString()));
+        }
+        return new PlaceholderTemplate(tokens.toArray(), used);
+    }
+
+    /**
+     * @param placeholder Der Platzhalter.
+     * @return true, wenn das Format diesen Platzhalter enthält.
+     */
+    public boolean uses(Placeholder placeholder) {
+        return used.contains(placeholder);
+    }
+
+    /** @return true, wenn das Format keine Platzhalter enthält (Ergebnis ist immer gleich). */
+    public boolean isStatic() {
+        return staticText != null;
+    }
+
+    /**
+     * Hängt das gerenderte Ergebnis an einen Builder an.
+     *
+     * @param target   Ziel-Builder.
+     * @param resolver Liefert die Werte der vorkommenden Platzhalter.
+     */
+    public void appendTo(StringBuilder target, Resolver resolver) {
+        for (Object token : tokens) {
+            if (token instanceof Placeholder placeholder) {
+                resolver.append(placeholder, target);
+            } else {
+                target.append((String) token);
+            }
+        }
+    }
+
+    /**
+     * Rendert das Template in einen neuen String (über einen wiederverwendeten Builder).
+     *
+     * @param resolver Liefert die Werte der vorkommenden Platzhalter.
+     * @return Das fertige Ergebnis.
+     */
+    public String render(Resolver resolver) {
+        if (staticText != null) return staticText; // Kein Builder, keine Kopie
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        appendTo(sb, resolver);
+        return sb.toString();
+    }
+}
@@ -97,8 +97,20 @@ public final class TimeUtil { // final, da nur statische Methoden
      * @return Ein formatierter String oder "0s" wenn die Dauer null oder negativ ist.
      */
     public static String formatDuration(long millis) {
+        return appendDuration(new StringBuilder(16), millis).toString();
+    }
+
+    /**
+     * Wie formatDuration, hängt das Ergebnis aber direkt an einen bestehenden Builder an
+     * (z.B. beim Rendern von Platzhalter-Templates, ohne Zwischen-String).
+     *
+     * @param sb     Der Ziel-Builder.
+     * @param millis Die Dauer in Millisekunden.
+     * @return Derselbe Builder.
+     */
+    public static StringBuilder appendDuration(StringBuilder sb, long millis) {
         if (millis <= 0) {
-            return "0s"; // Oder "None", "Expired"? "0s" ist technisch korrekt.
+            return sb.append("0s"); // Oder "None", "Expired"? "0s" ist technisch korrekt.
         }
 
         // Wandle Millisekunden in Tage, Stunden, Minuten, Sekunden um
@@ -110,22 +122,25 @@ public final class TimeUtil { // final, da nur statische Methoden
         millis -= TimeUnit.MINUTES.toMillis(minutes);
         long seconds = TimeUnit.MILLISECONDS.toSeconds(millis);
 
-        // Baue den String zusammen
-        StringBuilder sb = new StringBuilder();
+        // Baue den String zusammen (Leerzeichen nur zwischen den Einheiten)
+        int start = sb.length();
         if (days > 0) {
-            sb.append(days).append("d ");
+            sb.append(days).append('d');
         }
         if (hours > 0) {
-            sb.append(hours).append("h ");
+            if (sb.length() > start) sb.append(' ');
+            sb.append(hours).append('h');
         }
         if (minutes > 0) {
-            sb.append(minutes).append("m ");
+            if (sb.length() > start) sb.append(' ');
+            sb.append(minutes).append('m');
         }
         // Sekunden nur anzeigen, wenn sie > 0 sind ODER wenn keine anderen Einheiten da sind (damit nicht leer zurückgegeben wird..)
-        if (seconds > 0 || sb.length() == 0) {
-            sb.append(seconds).append("s");
+        if (seconds > 0 || sb.length() == start) {
+            if (sb.length() > start) sb.append(' ');
+            sb.append(seconds).append('s');
         }
-        return sb.toString().trim();
+        return sb;
     }
 
     public static String formatTimestamp(long timestampMillis) {
@@ -0,0 +1,29 @@
+package eu.rawora.playLegendTask.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bildet Weltnamen (wie {@code World#getName()}) auf die kleingeschriebenen Schlüssel der Welt-Einträge ab.
+ * Jeder Name wird nur beim ersten Mal kleingeschrieben, danach ist die Abbildung ein einzelner Map-Lookup
+ * ohne neue Objekte. Es gibt nur wenige Welten, der Cache bleibt also klein. Threadsicher.
+ */
+public final class WorldKeys {
+
+    private static final Map<String, String> KEYS = new ConcurrentHashMap<>();
+
+    private WorldKeys() {
+    }
+
+    /**
+     * @param worldName Der Name der Welt (beliebige Schreibweise).
+     * @return Der kleingeschriebene Schlüssel (immer dieselbe Instanz pro Name).
+     */
+    public static String of(String worldName) {
+        String key = KEYS.get(worldName);
+        if (key == null) {
+            key = KEYS.computeIfAbsent(worldName, String::toLowerCase);
+        }
+        return key;
+    }
+}